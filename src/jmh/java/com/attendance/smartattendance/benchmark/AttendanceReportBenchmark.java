@@ -0,0 +1,159 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.entity.WeeklyAttendance;
+import com.attendance.smartattendance.service.AttendanceMatrix;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classroom report over 10k students x 200 days: the entity-based aggregation (one
+ * WeeklyAttendance with six String columns per student-week) against the bitset matrix.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="AttendanceReportBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttendanceReportBenchmark {
+
+	@Param({"10000"})
+	public int students;
+
+	@Param({"200"})
+	public int days;
+
+	private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 6); // a Monday
+
+	private List<String> rollNumbers;
+	private List<WeeklyAttendance> entities;
+	private int[] weekPresentMasks;   // students x weeks, the same data as the entities
+	private int[] weekRecordedMasks;
+	private int weeks;
+	private AttendanceMatrix matrix;
+	private byte[] matrixBytes;
+
+	@Setup
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(42);
+		weeks = (days + 6) / 7;
+		rollNumbers = new ArrayList<>(students);
+		entities = new ArrayList<>(students * weeks);
+		weekPresentMasks = new int[students * weeks];
+		weekRecordedMasks = new int[students * weeks];
+
+		for (int s = 0; s < students; s++) {
+			String rollNumber = "R" + s;
+			rollNumbers.add(rollNumber);
+			for (int w = 0; w < weeks; w++) {
+				String[] status = new String[6];
+				int present = 0;
+				int recorded = 0;
+				for (int d = 0; d < 6 && w * 7 + d < days; d++) {
+					int roll = random.nextInt(10);
+					if (roll == 0) continue; // no entry that day
+					recorded |= 1 << d;
+					if (roll > 2) present |= 1 << d;
+					status[d] = roll > 2 ? "P" : "A";
+				}
+				WeeklyAttendance entity = new WeeklyAttendance();
+				entity.setRollNumber(rollNumber);
+				entity.setName("Student " + s);
+				entity.setMon(status[0]);
+				entity.setTue(status[1]);
+				entity.setWed(status[2]);
+				entity.setThu(status[3]);
+				entity.setFri(status[4]);
+				entity.setSat(status[5]);
+				entities.add(entity);
+				weekPresentMasks[s * weeks + w] = present;
+				weekRecordedMasks[s * weeks + w] = recorded;
+			}
+		}
+
+		matrix = buildMatrix();
+		matrixBytes = matrix.toBytes();
+	}
+
+	// ==============================
+	// ENTITY-BASED AGGREGATION
+	// ==============================
+	@Benchmark
+	public void entityAggregation(Blackhole bh) {
+		Map<String, int[]> perStudent = new HashMap<>(students * 2);
+		int[] presentPerDay = new int[days];
+		int[] recordedPerDay = new int[days];
+
+		for (int i = 0; i < entities.size(); i++) {
+			WeeklyAttendance row = entities.get(i);
+			int monday = (i % weeks) * 7;
+			int[] totals = perStudent.computeIfAbsent(row.getRollNumber(), r -> new int[2]);
+			String[] week = {row.getMon(), row.getTue(), row.getWed(), row.getThu(), row.getFri(), row.getSat()};
+			for (int d = 0; d < week.length; d++) {
+				if (week[d] == null) continue;
+				totals[1]++;
+				recordedPerDay[monday + d]++;
+				if ("P".equals(week[d])) {
+					totals[0]++;
+					presentPerDay[monday + d]++;
+				}
+			}
+		}
+
+		for (int[] totals : perStudent.values()) {
+			bh.consume(totals[1] == 0 ? 0 : totals[0] * 100.0 / totals[1]);
+		}
+		for (int d = 0; d < days; d++) {
+			bh.consume(recordedPerDay[d] == 0 ? 0 : presentPerDay[d] * 100.0 / recordedPerDay[d]);
+		}
+	}
+
+	// ==============================
+	// BITSET MATRIX
+	// ==============================
+	@Benchmark
+	public void matrixBuildAndAggregate(Blackhole bh) {
+		aggregate(buildMatrix(), bh);
+	}
+
+	@Benchmark
+	public void matrixAggregate(Blackhole bh) {
+		aggregate(matrix, bh);
+	}
+
+	@Benchmark
+	public byte[] matrixSerialize() {
+		return matrix.toBytes();
+	}
+
+	@Benchmark
+	public AttendanceMatrix matrixDeserialize() {
+		return AttendanceMatrix.fromBytes(matrixBytes);
+	}
+
+	private AttendanceMatrix buildMatrix() {
+		AttendanceMatrix built = new AttendanceMatrix(rollNumbers, FIRST_DAY, days);
+		for (int s = 0; s < students; s++) {
+			for (int w = 0; w < weeks; w++) {
+				int i = s * weeks + w;
+				built.applyWeek(s, FIRST_DAY.plusWeeks(w), weekPresentMasks[i], weekRecordedMasks[i]);
+			}
+		}
+		return built;
+	}
+
+	private void aggregate(AttendanceMatrix m, Blackhole bh) {
+		for (int s = 0; s < m.students(); s++) bh.consume(m.studentPercentage(s));
+		for (int d = 0; d < m.days(); d++) bh.consume(m.dayPercentage(d));
+	}
+}
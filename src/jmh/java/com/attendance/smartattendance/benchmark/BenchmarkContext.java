@@ -0,0 +1,66 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.SmartAttendanceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application against a private in-memory H2 database (the "h2" test profile) with
+ * a counting mail sender, and seeds classrooms directly through JDBC.
+ */
+public final class BenchmarkContext {
+
+	private BenchmarkContext() {
+	}
+
+	public static ConfigurableApplicationContext start(String... extraProperties) {
+		List<String> properties = new ArrayList<>(List.of(
+				"spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID()
+						+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+				"spring.jpa.properties.hibernate.generate_statistics=false",
+				"server.port=0",
+				"dashboard.cache.ttl-ms=0",
+				// No provider quota in front of the counting sender
+				"mail.delivery.rate-per-second=0",
+				"mail.delivery.connections=16",
+				// Synthetic bursts come from one address
+				"rate-limit.enabled=false"));
+		properties.addAll(List.of(extraProperties));
+
+		return new SpringApplicationBuilder(SmartAttendanceApplication.class)
+				.profiles("h2")
+				.properties(properties.toArray(String[]::new))
+				// Registered before auto-configuration, which then backs off from creating the SMTP sender
+				.initializers(ctx -> ((GenericApplicationContext) ctx)
+						.registerBean(JavaMailSender.class, BenchmarkMailSender::new))
+				.run();
+	}
+
+	// Returns the teacherId owning the classroom; roll numbers are <classroomCode>-0 .. -(size-1)
+	public static String seedClassroom(ConfigurableApplicationContext context, String classroomCode, int size) {
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		String teacherId = "T" + classroomCode;
+
+		jdbc.update("INSERT INTO teachers (name, email, teacher_id, classroom_code, verified) VALUES (?, ?, ?, ?, true)",
+				"Teacher " + classroomCode, classroomCode + "@teacher.bench", teacherId, classroomCode);
+
+		List<Object[]> students = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			students.add(new Object[]{"Student " + i, rollNumber(classroomCode, i),
+					classroomCode + "-" + i + "@student.bench", classroomCode});
+		}
+		jdbc.batchUpdate("INSERT INTO students (name, roll_number, email, classroom_code) VALUES (?, ?, ?, ?)", students);
+		return teacherId;
+	}
+
+	public static String rollNumber(String classroomCode, int index) {
+		return classroomCode + "-" + index;
+	}
+}
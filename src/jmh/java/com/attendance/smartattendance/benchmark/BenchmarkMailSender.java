@@ -0,0 +1,63 @@
+package com.attendance.smartattendance.benchmark;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mail sender that only counts messages, so benchmarks measure the application and not SMTP.
+ */
+public class BenchmarkMailSender implements JavaMailSender {
+
+	private final LongAdder sent = new LongAdder();
+
+	public long getSent() {
+		return sent.sum();
+	}
+
+	@Override
+	public MimeMessage createMimeMessage() {
+		return new MimeMessage((Session) null);
+	}
+
+	@Override
+	public MimeMessage createMimeMessage(InputStream contentStream) throws MailException {
+		return createMimeMessage();
+	}
+
+	@Override
+	public void send(MimeMessage mimeMessage) throws MailException {
+		sent.increment();
+	}
+
+	@Override
+	public void send(MimeMessage... mimeMessages) throws MailException {
+		sent.add(mimeMessages.length);
+	}
+
+	@Override
+	public void send(MimeMessagePreparator mimeMessagePreparator) throws MailException {
+		sent.increment();
+	}
+
+	@Override
+	public void send(MimeMessagePreparator... mimeMessagePreparators) throws MailException {
+		sent.add(mimeMessagePreparators.length);
+	}
+
+	@Override
+	public void send(SimpleMailMessage simpleMessage) throws MailException {
+		sent.increment();
+	}
+
+	@Override
+	public void send(SimpleMailMessage... simpleMessages) throws MailException {
+		sent.add(simpleMessages.length);
+	}
+}
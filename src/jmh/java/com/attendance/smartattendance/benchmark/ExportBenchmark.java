@@ -0,0 +1,128 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.service.AttendanceExportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-range export of one classroom whose ledger holds about 1M recorded days (4000 students x
+ * 42 weeks x 6 days), written to a byte-counting stream. "cursor" runs the real query against
+ * H2; "writerOnly" feeds the same weeks straight to the writer to show what the query costs.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="ExportBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class ExportBenchmark {
+
+	private static final String CLASSROOM = "export";
+	private static final LocalDate FIRST_WEEK = LocalDate.of(2025, 1, 6); // a Monday
+
+	@Param({"4000"})
+	public int students;
+
+	@Param({"42"})
+	public int weeks;
+
+	@Param({"CSV", "COLUMNAR"})
+	public AttendanceExportService.Format format;
+
+	private ConfigurableApplicationContext context;
+	private AttendanceExportService exportService;
+	private LocalDate to;
+	private int[] presentMasks;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		context = BenchmarkContext.start();
+		BenchmarkContext.seedClassroom(context, CLASSROOM, students);
+		exportService = context.getBean(AttendanceExportService.class);
+		to = FIRST_WEEK.plusWeeks(weeks - 1).plusDays(5);
+
+		SplittableRandom random = new SplittableRandom(42);
+		presentMasks = new int[students * weeks];
+		List<Object[]> rows = new ArrayList<>(5_000);
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		List<Long> ids = jdbc.queryForList("SELECT id FROM students WHERE classroom_code = ? ORDER BY id", Long.class, CLASSROOM);
+		for (int s = 0; s < students; s++) {
+			for (int w = 0; w < weeks; w++) {
+				int present = random.nextInt(64);
+				presentMasks[s * weeks + w] = present;
+				rows.add(new Object[]{ids.get(s), BenchmarkContext.rollNumber(CLASSROOM, s), CLASSROOM,
+						FIRST_WEEK.plusWeeks(w), present, 0b111111});
+				if (rows.size() == 5_000) {
+					insertLedger(jdbc, rows);
+					rows.clear();
+				}
+			}
+		}
+		insertLedger(jdbc, rows);
+
+		CountingOutputStream out = new CountingOutputStream();
+		exportService.export(CLASSROOM, FIRST_WEEK, to, format, out);
+		System.out.println(format + " export of " + (long) students * weeks * 6 + " days: " + out.bytes + " bytes");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public long cursor() throws IOException {
+		CountingOutputStream out = new CountingOutputStream();
+		exportService.export(CLASSROOM, FIRST_WEEK, to, format, out);
+		return out.bytes;
+	}
+
+	@Benchmark
+	public long writerOnly() throws IOException {
+		CountingOutputStream out = new CountingOutputStream();
+		AttendanceExportService.WeekSink sink = format == AttendanceExportService.Format.COLUMNAR
+				? new AttendanceExportService.ColumnarWriter(out, FIRST_WEEK)
+				: new AttendanceExportService.CsvWriter(out);
+		for (int s = 0; s < students; s++) {
+			String rollNumber = BenchmarkContext.rollNumber(CLASSROOM, s);
+			String name = "Student " + s;
+			for (int w = 0; w < weeks; w++) {
+				sink.week(s, rollNumber, name, FIRST_WEEK.plusWeeks(w), presentMasks[s * weeks + w], 0b111111);
+			}
+		}
+		sink.finish();
+		return out.bytes;
+	}
+
+	private static void insertLedger(JdbcTemplate jdbc, List<Object[]> rows) {
+		if (rows.isEmpty()) return;
+		jdbc.batchUpdate("INSERT INTO attendance_ledger (student_id, roll_number, classroom_code, week_start, present_mask, "
+				+ "recorded_mask) VALUES (?, ?, ?, ?, ?, ?)", rows);
+	}
+
+	/** Discards what is written; only the size is kept. */
+	private static final class CountingOutputStream extends OutputStream {
+		long bytes;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+	}
+}
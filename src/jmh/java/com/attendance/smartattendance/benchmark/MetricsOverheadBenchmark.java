@@ -0,0 +1,67 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.service.OtpMetrics;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost OtpMetrics adds to one submit, on the Prometheus registry the application uses, against
+ * a bare LongAdder increment as the floor. Classrooms rotate so the per-classroom lookup is
+ * exercised, not just one hot counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+	@Param({"1", "100"})
+	public int classrooms;
+
+	private OtpMetrics metrics;
+	private String[] classroomCodes;
+	private final LongAdder baseline = new LongAdder();
+	private long issuedAtMillis;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int next;
+
+		int next(int size) {
+			next = next + 1 == size ? 0 : next + 1;
+			return next;
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		metrics = new OtpMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+		classroomCodes = new String[classrooms];
+		for (int i = 0; i < classrooms; i++) classroomCodes[i] = "C" + i;
+		issuedAtMillis = System.currentTimeMillis();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void baselineIncrement() {
+		baseline.increment();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void submitOutcome(Cursor cursor) {
+		metrics.submitted(classroomCodes[cursor.next(classrooms)], OtpMetrics.Outcome.INVALID);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void verifiedWithIssueToVerify(Cursor cursor) {
+		metrics.verified(classroomCodes[cursor.next(classrooms)], issuedAtMillis);
+	}
+}
@@ -0,0 +1,110 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.dto.OtpDispatchStatusDTO;
+import com.attendance.smartattendance.service.OtpService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP issue and validation, parameterized by classroom size.
+ *
+ * issueClassroomOtps is one Send OTP press (generate, persist, cache, mail) for the whole
+ * classroom. verifyClassroomBurst submits every student's OTP once, so its score is the time
+ * for one classroom's burst; with otpCache=false every submit takes the database path.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class OtpBenchmark {
+
+	private static final String CLASSROOM = "BENCH";
+
+	@Param({"30", "300", "3000"})
+	public int classroomSize;
+
+	@Param({"true", "false"})
+	public boolean otpCache;
+
+	private ConfigurableApplicationContext context;
+	private OtpService otpService;
+	private JdbcTemplate jdbc;
+
+	/**
+	 * Fresh OTPs for each verify iteration. A separate state so only the verify benchmark pays for
+	 * (and is timed after) a Send OTP per iteration; issueClassroomOtps does not use it.
+	 */
+	@State(Scope.Benchmark)
+	public static class IssuedOtps {
+
+		// roll number -> OTP issued for the current iteration
+		private final List<String[]> issued = new ArrayList<>();
+
+		@Setup(Level.Iteration)
+		public void issueFreshOtps(OtpBenchmark benchmark) throws InterruptedException {
+			benchmark.awaitDispatch(benchmark.otpService.sendOtpToClassroom(CLASSROOM));
+
+			// Latest OTP per student wins, matching what the student would have received last
+			Map<String, String> latest = new LinkedHashMap<>();
+			benchmark.jdbc.query("SELECT roll_number, otp FROM student_otp WHERE used = false ORDER BY id",
+					rs -> { latest.put(rs.getString(1), rs.getString(2)); });
+			issued.clear();
+			latest.forEach((roll, otp) -> issued.add(new String[]{roll, otp}));
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = BenchmarkContext.start("otp.cache.max-entries=" + (otpCache ? 100_000 : 0));
+		otpService = context.getBean(OtpService.class);
+		jdbc = context.getBean(JdbcTemplate.class);
+		BenchmarkContext.seedClassroom(context, CLASSROOM, classroomSize);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	// ==============================
+	// GENERATION
+	// ==============================
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public OtpDispatchStatusDTO issueClassroomOtps() throws InterruptedException {
+		return awaitDispatch(otpService.sendOtpToClassroom(CLASSROOM));
+	}
+
+	// ==============================
+	// VALIDATION
+	// ==============================
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 10)
+	public int verifyClassroomBurst(IssuedOtps otps) {
+		int marked = 0;
+		for (String[] otp : otps.issued) {
+			if ("Attendance marked successfully".equals(otpService.verifyOtp(otp[0], otp[1]))) marked++;
+		}
+		return marked;
+	}
+
+	private OtpDispatchStatusDTO awaitDispatch(OtpDispatchStatusDTO job) throws InterruptedException {
+		OtpDispatchStatusDTO status = job;
+		while ("RUNNING".equals(status.getState())) {
+			Thread.sleep(1);
+			status = otpService.getDispatchStatus(job.getJobId()).orElse(status);
+		}
+		return status;
+	}
+}
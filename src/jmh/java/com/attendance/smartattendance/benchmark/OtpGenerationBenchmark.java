@@ -0,0 +1,29 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.service.OtpService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one OTP (SecureRandom draw), single-threaded and with every core drawing at once the
+ * way a large fan-out does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OtpGenerationBenchmark {
+
+	@Benchmark
+	public String generateOtp() {
+		return OtpService.generate6DigitOtp();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public String generateOtpContended() {
+		return OtpService.generate6DigitOtp();
+	}
+}
@@ -0,0 +1,89 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.controller.api.AttendanceController;
+import com.attendance.smartattendance.controller.api.TeacherAuthController;
+import com.attendance.smartattendance.dto.StudentDashboardDTO;
+import com.attendance.smartattendance.dto.ViewAttendanceRowDTO;
+import com.attendance.smartattendance.service.AttendanceLedgerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weekly view (AttendanceController#weekly) and teacher dashboard (TeacherAuthController#getAllStudents)
+ * assembly for one classroom, with a week of attendance already recorded. The dashboard cache is
+ * disabled so every call builds the rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+	private static final String CLASSROOM = "BENCH";
+
+	@Param({"30", "300", "3000"})
+	public int classroomSize;
+
+	private ConfigurableApplicationContext context;
+	private AttendanceController attendanceController;
+	private TeacherAuthController teacherAuthController;
+	private MockHttpSession session;
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = BenchmarkContext.start();
+		attendanceController = context.getBean(AttendanceController.class);
+		teacherAuthController = context.getBean(TeacherAuthController.class);
+
+		String teacherId = BenchmarkContext.seedClassroom(context, CLASSROOM, classroomSize);
+		seedAttendance();
+
+		session = new MockHttpSession();
+		session.setAttribute("teacherId", teacherId);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<ViewAttendanceRowDTO> weeklyView() {
+		return attendanceController.weekly(session);
+	}
+
+	@Benchmark
+	public List<StudentDashboardDTO> dashboard() {
+		return teacherAuthController.getAllStudents(session);
+	}
+
+	// Every day of the week so far in the ledger, and today's rows for two thirds of the classroom
+	private void seedAttendance() {
+		LocalDate today = LocalDate.now();
+		List<AttendanceLedgerService.LedgerMark> marks = new ArrayList<>();
+		List<Object[]> todayRows = new ArrayList<>();
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		List<Long> ids = jdbc.queryForList("SELECT id FROM students WHERE classroom_code = ? ORDER BY id", Long.class, CLASSROOM);
+
+		for (int i = 0; i < classroomSize; i++) {
+			String roll = BenchmarkContext.rollNumber(CLASSROOM, i);
+			for (LocalDate day = today.with(DayOfWeek.MONDAY); !day.isAfter(today); day = day.plusDays(1)) {
+				marks.add(new AttendanceLedgerService.LedgerMark(ids.get(i), roll, CLASSROOM, day, (i + day.getDayOfMonth()) % 3 != 0));
+			}
+			if (i % 3 != 0) todayRows.add(new Object[]{ids.get(i), today, roll});
+		}
+
+		context.getBean(AttendanceLedgerService.class).markDays(marks);
+		jdbc.batchUpdate("INSERT INTO attendance (student_id, date, present, roll_number, otp_used) VALUES (?, ?, true, ?, false)", todayRows);
+	}
+}
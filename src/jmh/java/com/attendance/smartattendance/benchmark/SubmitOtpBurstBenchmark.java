@@ -0,0 +1,128 @@
+package com.attendance.smartattendance.benchmark;
+
+import com.attendance.smartattendance.dto.OtpDispatchStatusDTO;
+import com.attendance.smartattendance.service.OtpService;
+import com.attendance.smartattendance.service.VirtualThreadPinningMonitor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One classroom's submit-otp burst over real HTTP, with Tomcat on platform threads (its default
+ * pool of server.tomcat.threads.max workers) or on virtual threads (spring.threads.virtual.enabled).
+ * Every student's OTP is posted at once; the score is the time until the last response arrives.
+ *
+ * In-memory H2 answers in microseconds, so handlers barely block here. The gap between the two modes
+ * is smaller than it would be with a network round trip to MySQL on every query.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="SubmitOtpBurstBenchmark"
+ * Pinning seen during the virtual runs is printed at tear-down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SubmitOtpBurstBenchmark {
+
+	private static final String CLASSROOM = "BURST";
+
+	@Param({"platform", "virtual"})
+	public String threads;
+
+	@Param({"3000"})
+	public int classroomSize;
+
+	// Tomcat's worker pool in platform mode; ignored in virtual mode
+	@Param({"200"})
+	public int tomcatThreads;
+
+	private ConfigurableApplicationContext context;
+	private OtpService otpService;
+	private JdbcTemplate jdbc;
+	private HttpClient client;
+	private ExecutorService clientThreads;
+	private URI submitUri;
+
+	private final List<String> bodies = new ArrayList<>();
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = BenchmarkContext.start(
+				"spring.threads.virtual.enabled=" + "virtual".equals(threads),
+				"server.tomcat.threads.max=" + tomcatThreads,
+				"diagnostics.pinning.enabled=" + "virtual".equals(threads));
+		otpService = context.getBean(OtpService.class);
+		jdbc = context.getBean(JdbcTemplate.class);
+		BenchmarkContext.seedClassroom(context, CLASSROOM, classroomSize);
+
+		// Client side always on virtual threads so it never limits the burst
+		clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+		client = HttpClient.newBuilder().executor(clientThreads).connectTimeout(Duration.ofSeconds(10)).build();
+		submitUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+				+ "/api/students/submit-otp");
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		if ("virtual".equals(threads)) {
+			System.out.println("Pinned sites: " + context.getBean(VirtualThreadPinningMonitor.class).report());
+		}
+		clientThreads.shutdownNow();
+		context.close();
+	}
+
+	@Setup(Level.Iteration)
+	public void issueFreshOtps() throws InterruptedException {
+		jdbc.update("DELETE FROM attendance");
+		awaitDispatch(otpService.sendOtpToClassroom(CLASSROOM));
+
+		Map<String, String> latest = new LinkedHashMap<>();
+		jdbc.query("SELECT roll_number, otp FROM student_otp WHERE used = false ORDER BY id",
+				rs -> { latest.put(rs.getString(1), rs.getString(2)); });
+		bodies.clear();
+		latest.forEach((roll, otp) -> bodies.add("{\"rollNumber\":\"" + roll + "\",\"otp\":\"" + otp + "\"}"));
+	}
+
+	@Benchmark
+	public int submitBurst() {
+		List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>(bodies.size());
+		for (String body : bodies) {
+			HttpRequest request = HttpRequest.newBuilder(submitUri)
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(body))
+					.build();
+			responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+		}
+		int marked = 0;
+		for (CompletableFuture<HttpResponse<String>> response : responses) {
+			HttpResponse<String> result = response.join();
+			if (result.statusCode() == 200 && "Attendance marked successfully".equals(result.body())) marked++;
+		}
+		return marked;
+	}
+
+	private OtpDispatchStatusDTO awaitDispatch(OtpDispatchStatusDTO job) throws InterruptedException {
+		OtpDispatchStatusDTO status = job;
+		while ("RUNNING".equals(status.getState())) {
+			Thread.sleep(1);
+			status = otpService.getDispatchStatus(job.getJobId()).orElse(status);
+		}
+		return status;
+	}
+}
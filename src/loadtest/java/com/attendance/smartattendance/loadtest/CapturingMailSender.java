@@ -0,0 +1,133 @@
+package com.attendance.smartattendance.loadtest;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory JavaMailSender that keeps the last message body per recipient, so the load test can
+ * read OTPs and verification links the way a user would read their inbox.
+ */
+public class CapturingMailSender implements JavaMailSender {
+
+	private static final Pattern OTP = Pattern.compile("OTP is: (\\d{6})");
+	private static final Pattern VERIFY_TOKEN = Pattern.compile("verify\\?token=([\\w-]+)");
+
+	// recipient -> latest body, with a sequence number so a waiter can tell a new message from an old one
+	private final Map<String, Message> inbox = new ConcurrentHashMap<>();
+	private final LongAdder sent = new LongAdder();
+
+	private record Message(long sequence, String body) {}
+
+	public long getSent() {
+		return sent.sum();
+	}
+
+	public long sequence(String recipient) {
+		Message message = inbox.get(recipient);
+		return message == null ? 0 : message.sequence();
+	}
+
+	// Waits for a message newer than afterSequence and returns its body, or null on timeout
+	public String awaitMessage(String recipient, long afterSequence, long timeoutMs) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		while (System.currentTimeMillis() < deadline) {
+			Message message = inbox.get(recipient);
+			if (message != null && message.sequence() > afterSequence) return message.body();
+			Thread.sleep(5);
+		}
+		return null;
+	}
+
+	public static String otpIn(String body) {
+		return group(OTP, body);
+	}
+
+	public static String verifyTokenIn(String body) {
+		return group(VERIFY_TOKEN, body);
+	}
+
+	private static String group(Pattern pattern, String body) {
+		if (body == null) return null;
+		Matcher matcher = pattern.matcher(body);
+		return matcher.find() ? matcher.group(1) : null;
+	}
+
+	private void deliver(String recipient, String body) {
+		sent.increment();
+		inbox.merge(recipient, new Message(1, body),
+				(old, latest) -> new Message(old.sequence() + 1, latest.body()));
+	}
+
+	// ==============================
+	// JavaMailSender
+	// ==============================
+	@Override
+	public void send(SimpleMailMessage simpleMessage) throws MailException {
+		if (simpleMessage.getTo() == null) return;
+		for (String recipient : simpleMessage.getTo()) deliver(recipient, simpleMessage.getText());
+	}
+
+	@Override
+	public void send(SimpleMailMessage... simpleMessages) throws MailException {
+		for (SimpleMailMessage message : simpleMessages) send(message);
+	}
+
+	@Override
+	public MimeMessage createMimeMessage() {
+		return new MimeMessage((Session) null);
+	}
+
+	@Override
+	public MimeMessage createMimeMessage(InputStream contentStream) throws MailException {
+		try {
+			return new MimeMessage(null, contentStream);
+		} catch (MessagingException e) {
+			throw new MailParseException(e);
+		}
+	}
+
+	@Override
+	public void send(MimeMessage mimeMessage) throws MailException {
+		try {
+			String body = String.valueOf(mimeMessage.getContent());
+			for (var recipient : mimeMessage.getAllRecipients()) deliver(recipient.toString(), body);
+		} catch (MessagingException | IOException e) {
+			throw new MailParseException(e);
+		}
+	}
+
+	@Override
+	public void send(MimeMessage... mimeMessages) throws MailException {
+		for (MimeMessage message : mimeMessages) send(message);
+	}
+
+	@Override
+	public void send(MimeMessagePreparator mimeMessagePreparator) throws MailException {
+		MimeMessage message = createMimeMessage();
+		try {
+			mimeMessagePreparator.prepare(message);
+		} catch (Exception e) {
+			throw new MailParseException(e);
+		}
+		send(message);
+	}
+
+	@Override
+	public void send(MimeMessagePreparator... mimeMessagePreparators) throws MailException {
+		for (MimeMessagePreparator preparator : mimeMessagePreparators) send(preparator);
+	}
+}
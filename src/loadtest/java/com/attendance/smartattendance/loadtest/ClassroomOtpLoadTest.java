@@ -0,0 +1,267 @@
+package com.attendance.smartattendance.loadtest;
+
+import com.attendance.smartattendance.SmartAttendanceApplication;
+import com.attendance.smartattendance.repository.TeacherRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Classroom OTP burst against one in-process instance (embedded H2, in-memory mailer).
+ *
+ * Every classroom: register + verify + login a teacher, add its students, then all teachers press
+ * Send OTP together. Each student reads the OTP from the captured mail and submits it after a
+ * random delay within the burst window, while some open student pages poll otp-status. Prints
+ * p50/p99/p999, throughput and error rate per endpoint and writes HdrHistogram .hgrm files.
+ *
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.classrooms=50 -Dloadtest.students=60
+ */
+public final class ClassroomOtpLoadTest {
+
+	private static final String MARKED = "Attendance marked successfully";
+
+	private final int classrooms = Integer.getInteger("loadtest.classrooms", 20);
+	private final int studentsPerClassroom = Integer.getInteger("loadtest.students", 60);
+	private final int pollersPerClassroom = Integer.getInteger("loadtest.pollers", 10);
+	private final long pollIntervalMs = Long.getLong("loadtest.poll-interval-ms", 1_000);
+	private final long burstMs = Long.getLong("loadtest.burst-ms", 10_000);
+	private final double wrongOtpRatio = Double.parseDouble(System.getProperty("loadtest.wrong-otp-ratio", "0.02"));
+	private final Path histogramDir = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+
+	private final CapturingMailSender mail = new CapturingMailSender();
+	private final EndpointStats stats = new EndpointStats();
+	private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+	private final LongAdder marked = new LongAdder();
+
+	private String baseUrl;
+	private HttpClient studentClient;
+	private TeacherRepository teacherRepository;
+
+	private record Classroom(String teacherId, String classroomCode, HttpClient teacherClient, List<String> rollNumbers,
+							 List<String> emails) {}
+
+	public static void main(String[] args) throws Exception {
+		new ClassroomOtpLoadTest().run();
+	}
+
+	private void run() throws Exception {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(SmartAttendanceApplication.class)
+				.profiles("h2")
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID()
+								+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+						"spring.jpa.properties.hibernate.generate_statistics=false",
+						"server.port=0",
+						// The in-memory mailer has no provider quota to respect
+						"mail.delivery.rate-per-second=0",
+						"mail.delivery.connections=16",
+						// Every simulated student comes from localhost: per-IP limits would reject most of the run
+						"rate-limit.enabled=false")
+				// Registered before auto-configuration, which then backs off from creating the SMTP sender
+				.initializers(ctx -> ((GenericApplicationContext) ctx).registerBean(JavaMailSender.class, () -> mail))
+				.run();
+
+		try {
+			baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			teacherRepository = context.getBean(TeacherRepository.class);
+			studentClient = client(null);
+
+			System.out.printf("Setting up %d classrooms x %d students...%n", classrooms, studentsPerClassroom);
+			List<Classroom> rooms = all(range(classrooms, this::setUpClassroom));
+
+			AtomicBoolean polling = new AtomicBoolean(true);
+			List<Future<?>> pollers = new ArrayList<>();
+			for (Classroom room : rooms) {
+				for (int i = 0; i < pollersPerClassroom; i++) pollers.add(threads.submit(() -> poll(room, polling)));
+			}
+
+			System.out.println("Sending OTPs and replaying submit bursts...");
+			long start = System.nanoTime();
+			all(rooms.stream().<Callable<Void>>map(room -> () -> burst(room)).toList());
+			double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+			polling.set(false);
+			for (Future<?> poller : pollers) poller.get();
+
+			System.out.printf("%nBurst phase: %.1f s, %d / %d students marked, %d mails sent%n%n",
+					elapsedSeconds, marked.sum(), classrooms * studentsPerClassroom, mail.getSent());
+			stats.report(System.out, elapsedSeconds);
+			stats.writeHistograms(histogramDir);
+			System.out.println("\nHdrHistogram output: " + histogramDir.toAbsolutePath());
+		} finally {
+			threads.shutdownNow();
+			context.close();
+		}
+	}
+
+	// ==============================
+	// PHASES
+	// ==============================
+	private Classroom setUpClassroom(int index) throws Exception {
+		String teacherId = String.valueOf(100000 + index);
+		String email = "teacher" + index + "@loadtest.local";
+		HttpClient teacher = client(new CookieManager());
+
+		send(teacher, "POST /api/teacher/register", post("/api/teacher/register",
+				"{\"name\":\"Teacher " + index + "\",\"email\":\"" + email + "\",\"teacherId\":\"" + teacherId
+						+ "\",\"password\":\"secret-" + index + "\"}"), ok());
+
+		String token = CapturingMailSender.verifyTokenIn(mail.awaitMessage(email, 0, 30_000));
+		send(teacher, "GET /api/teacher/verify",
+				HttpRequest.newBuilder(URI.create(baseUrl + "/api/teacher/verify?token=" + token)).GET().build(), ok());
+
+		send(teacher, "POST /api/teacher/login", post("/api/teacher/login",
+				"{\"teacherId\":\"" + teacherId + "\",\"password\":\"secret-" + index + "\"}"), ok());
+
+		List<String> rollNumbers = new ArrayList<>();
+		List<String> emails = new ArrayList<>();
+		for (int i = 0; i < studentsPerClassroom; i++) {
+			String roll = "C" + index + "-S" + i;
+			String studentEmail = roll.toLowerCase() + "@loadtest.local";
+			send(teacher, "POST /api/teacher/add-student", post("/api/teacher/add-student",
+					"{\"name\":\"Student " + roll + "\",\"rollNumber\":\"" + roll + "\",\"email\":\"" + studentEmail + "\"}"), ok());
+			rollNumbers.add(roll);
+			emails.add(studentEmail);
+		}
+
+		String classroomCode = teacherRepository.findByTeacherId(teacherId)
+				.orElseThrow(() -> new IllegalStateException("Teacher " + teacherId + " was not registered"))
+				.getClassroomCode();
+		return new Classroom(teacherId, classroomCode, teacher, rollNumbers, emails);
+	}
+
+	private Void burst(Classroom room) throws Exception {
+		List<Long> seen = room.emails().stream().map(mail::sequence).toList();
+
+		send(room.teacherClient(), "POST /api/teacher/send-otp", post("/api/teacher/send-otp", ""),
+				response -> response.statusCode() == 202);
+
+		List<Callable<Void>> students = new ArrayList<>();
+		for (int i = 0; i < room.rollNumbers().size(); i++) {
+			int student = i;
+			students.add(() -> submit(room.rollNumbers().get(student), room.emails().get(student), seen.get(student)));
+		}
+		all(students);
+		return null;
+	}
+
+	private Void submit(String rollNumber, String email, long seenSequence) throws Exception {
+		String otp = CapturingMailSender.otpIn(mail.awaitMessage(email, seenSequence, 60_000));
+		if (otp == null) {
+			stats.record("mail (OTP not received)", System.nanoTime(), false);
+			return null;
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Thread.sleep(random.nextLong(burstMs + 1));
+
+		if (random.nextDouble() < wrongOtpRatio) {
+			String wrong = otp.equals("123456") ? "654321" : "123456";
+			send(studentClient, "POST /api/students/submit-otp (wrong)", submitRequest(rollNumber, wrong),
+					response -> response.statusCode() == 200 && response.body().contains("Invalid OTP"));
+		}
+
+		HttpResponse<String> response = send(studentClient, "POST /api/students/submit-otp",
+				submitRequest(rollNumber, otp), r -> r.statusCode() == 200 && MARKED.equals(r.body()));
+		if (response != null && MARKED.equals(response.body())) marked.increment();
+		return null;
+	}
+
+	private void poll(Classroom room, AtomicBoolean polling) {
+		HttpRequest request = HttpRequest.newBuilder(
+				URI.create(baseUrl + "/api/students/otp-status?classroomCode=" + room.classroomCode())).GET().build();
+		try {
+			// Spread the pollers out so they don't all land on the same tick
+			Thread.sleep(ThreadLocalRandom.current().nextLong(pollIntervalMs + 1));
+			while (polling.get()) {
+				send(studentClient, "GET /api/students/otp-status", request, ok());
+				Thread.sleep(pollIntervalMs);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// ==============================
+	// HTTP
+	// ==============================
+	private HttpResponse<String> send(HttpClient client, String endpoint, HttpRequest request,
+									  Predicate<HttpResponse<String>> success) {
+		long start = System.nanoTime();
+		try {
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			stats.record(endpoint, start, success.test(response));
+			return response;
+		} catch (Exception e) {
+			stats.record(endpoint, start, false);
+			return null;
+		}
+	}
+
+	private HttpRequest submitRequest(String rollNumber, String otp) {
+		return post("/api/students/submit-otp", "{\"rollNumber\":\"" + rollNumber + "\",\"otp\":\"" + otp + "\"}");
+	}
+
+	private HttpRequest post(String path, String json) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/json")
+				.timeout(Duration.ofSeconds(60))
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+	}
+
+	private HttpClient client(CookieManager cookies) {
+		HttpClient.Builder builder = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10))
+				.executor(threads);
+		if (cookies != null) builder.cookieHandler(cookies);
+		return builder.build();
+	}
+
+	private static Predicate<HttpResponse<String>> ok() {
+		return response -> response.statusCode() / 100 == 2;
+	}
+
+	// ==============================
+	// HELPERS
+	// ==============================
+	private interface IndexedTask<T> {
+		T call(int index) throws Exception;
+	}
+
+	private static <T> List<Callable<T>> range(int count, IndexedTask<T> task) {
+		List<Callable<T>> tasks = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int index = i;
+			tasks.add(() -> task.call(index));
+		}
+		return tasks;
+	}
+
+	private <T> List<T> all(List<Callable<T>> tasks) throws Exception {
+		List<T> results = new ArrayList<>(tasks.size());
+		for (Future<T> future : threads.invokeAll(tasks)) results.add(future.get());
+		return results;
+	}
+}
@@ -0,0 +1,68 @@
+package com.attendance.smartattendance.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency (microseconds, HdrHistogram) and outcome counts per endpoint.
+ */
+public class EndpointStats {
+
+	private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	private static final class Endpoint {
+		final Histogram latency = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+		final LongAdder ok = new LongAdder();
+		final LongAdder errors = new LongAdder();
+	}
+
+	public void record(String endpoint, long startNanos, boolean ok) {
+		long micros = Math.min(MAX_TRACKABLE_MICROS, (System.nanoTime() - startNanos) / 1_000);
+		Endpoint stats = endpoints.computeIfAbsent(endpoint, e -> new Endpoint());
+		stats.latency.recordValue(micros);
+		(ok ? stats.ok : stats.errors).increment();
+	}
+
+	public void report(PrintStream out, double elapsedSeconds) {
+		out.printf("%-28s %9s %10s %8s %10s %10s %10s %10s%n",
+				"endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+		for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+			Endpoint stats = entry.getValue();
+			long total = stats.ok.sum() + stats.errors.sum();
+			out.printf("%-28s %9d %10.1f %7.2f%% %10.2f %10.2f %10.2f %10.2f%n",
+					entry.getKey(), total, total / elapsedSeconds,
+					total == 0 ? 0 : stats.errors.sum() * 100.0 / total,
+					millis(stats.latency.getValueAtPercentile(50)),
+					millis(stats.latency.getValueAtPercentile(99)),
+					millis(stats.latency.getValueAtPercentile(99.9)),
+					millis(stats.latency.getMaxValue()));
+		}
+	}
+
+	// One HdrHistogram percentile distribution (.hgrm, milliseconds) per endpoint
+	public void writeHistograms(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+			String fileName = entry.getKey().replaceAll("[^A-Za-z0-9.-]", "_") + ".hgrm";
+			try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(fileName)))) {
+				entry.getValue().latency.outputPercentileDistribution(out, 1_000.0);
+			}
+		}
+	}
+
+	private static double millis(long micros) {
+		return micros / 1_000.0;
+	}
+}
@@ -1,24 +1,40 @@
 package com.attendance.smartattendance.controller.api;
 
+import com.attendance.smartattendance.dto.AttendanceHistoryRowDTO;
+import com.attendance.smartattendance.dto.ClassroomReportDTO;
+import com.attendance.smartattendance.dto.MaintenanceJobReportDTO;
+import com.attendance.smartattendance.dto.PinnedThreadSiteDTO;
 import com.attendance.smartattendance.dto.SubmitOtpRequest;
 import com.attendance.smartattendance.dto.ViewAttendanceRowDTO;
-import com.attendance.smartattendance.entity.Attendance;
+import com.attendance.smartattendance.entity.AttendanceLedger;
 import com.attendance.smartattendance.entity.Student;
-import com.attendance.smartattendance.entity.WeeklyAttendance;
-import com.attendance.smartattendance.repository.AttendanceRepository;
+import com.attendance.smartattendance.entity.Teacher;
+import com.attendance.smartattendance.repository.AttendanceLedgerRepository;
 import com.attendance.smartattendance.repository.StudentRepository;
 import com.attendance.smartattendance.repository.TeacherRepository;
-import com.attendance.smartattendance.repository.WeeklyAttendanceRepository;
+import com.attendance.smartattendance.service.AttendanceExportService;
+import com.attendance.smartattendance.service.AttendanceMaintenanceService;
+import com.attendance.smartattendance.service.AttendanceReportService;
 import com.attendance.smartattendance.service.AttendanceService;
+import com.attendance.smartattendance.service.AttendanceUpsertService;
+import com.attendance.smartattendance.service.DashboardCache;
+import com.attendance.smartattendance.service.StudentOtpPurgeService;
+import com.attendance.smartattendance.service.VirtualThreadPinningMonitor;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -26,61 +42,151 @@ import java.util.stream.Collectors;
 public class AttendanceController {
 
     private final StudentRepository studentRepository;
-    private final AttendanceRepository attendanceRepository;
 
-    public AttendanceController(StudentRepository studentRepository,
-                                AttendanceRepository attendanceRepository) {
+    public AttendanceController(StudentRepository studentRepository) {
         this.studentRepository = studentRepository;
-        this.attendanceRepository = attendanceRepository;
     }
 
-    @Autowired private WeeklyAttendanceRepository weeklyAttendanceRepository;
+    @Autowired private AttendanceLedgerRepository attendanceLedgerRepository;
     @Autowired private TeacherRepository teacherRepository;
     @Autowired private AttendanceService attendanceService;
+    @Autowired private DashboardCache dashboardCache;
+    @Autowired private AttendanceMaintenanceService attendanceMaintenanceService;
+    @Autowired private AttendanceReportService attendanceReportService;
+    @Autowired private AttendanceUpsertService attendanceUpsertService;
+    @Autowired private AttendanceExportService attendanceExportService;
+    @Autowired private StudentOtpPurgeService studentOtpPurgeService;
+    @Autowired private VirtualThreadPinningMonitor virtualThreadPinningMonitor;
 
     /** Weekly attendance for View button – Roll No, Name, Attendance (today OTP), M/T/W/T/F/S. */
+    // One row per student of the classroom; students with no mark this week yet show empty days
     @GetMapping("/weekly")
     public List<ViewAttendanceRowDTO> weekly(HttpSession session) {
-        List<WeeklyAttendance> list;
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = AttendanceLedger.weekStartOf(today);
+
+        List<Student> students;
+        List<AttendanceLedger> ledger;
         String teacherId = (String) session.getAttribute("teacherId");
         if (teacherId != null) {
-            list = teacherRepository.findByTeacherId(teacherId)
-                    .map(teacher -> {
-                        List<String> rollNumbers = studentRepository
-                                .findByClassroomCode(teacher.getClassroomCode())
-                                .stream()
-                                .map(Student::getRollNumber)
-                                .collect(Collectors.toList());
-                        if (rollNumbers.isEmpty()) return List.<WeeklyAttendance>of();
-                        return weeklyAttendanceRepository.findByRollNumberIn(rollNumbers);
-                    })
+            students = teacherRepository.findByTeacherId(teacherId)
+                    .map(teacher -> studentRepository.findByClassroomCode(teacher.getClassroomCode()))
                     .orElse(List.of());
+            if (students.isEmpty()) return List.of();
+            ledger = attendanceLedgerRepository.findByWeekStartAndStudentIdIn(weekStart,
+                    students.stream().map(Student::getId).collect(Collectors.toList()));
         } else {
-            list = weeklyAttendanceRepository.findAll();
+            students = studentRepository.findAll();
+            ledger = attendanceLedgerRepository.findByWeekStartOrderByRollNumber(weekStart);
         }
 
-        LocalDate today = LocalDate.now();
-        Set<String> presentTodayRollNumbers = attendanceRepository.findByDate(today).stream()
-                .filter(a -> Boolean.TRUE.equals(a.getPresent()) && a.getStudent() != null)
-                .map(a -> a.getStudent().getRollNumber())
-                .collect(Collectors.toSet());
-
-        return list.stream()
-                .map(wa -> new ViewAttendanceRowDTO(
-                        wa.getRollNumber(),
-                        wa.getName(),
-                        presentTodayRollNumbers.contains(wa.getRollNumber()),
-                        wa.getMon(),
-                        wa.getTue(),
-                        wa.getWed(),
-                        wa.getThu(),
-                        wa.getFri(),
-                        wa.getSat()
-                ))
+        Map<Long, AttendanceLedger> weekByStudent = ledger.stream()
+                .collect(Collectors.toMap(AttendanceLedger::getStudentId, row -> row));
+        AttendanceLedger noMarks = new AttendanceLedger();
+
+        return students.stream()
+                .sorted(Comparator.comparing(Student::getRollNumber, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(student -> {
+                    AttendanceLedger row = weekByStudent.getOrDefault(student.getId(), noMarks);
+                    return new ViewAttendanceRowDTO(
+                            student.getRollNumber(),
+                            student.getName(),
+                            "P".equals(row.statusOn(today.getDayOfWeek())),
+                            row.statusOn(DayOfWeek.MONDAY),
+                            row.statusOn(DayOfWeek.TUESDAY),
+                            row.statusOn(DayOfWeek.WEDNESDAY),
+                            row.statusOn(DayOfWeek.THURSDAY),
+                            row.statusOn(DayOfWeek.FRIDAY),
+                            row.statusOn(DayOfWeek.SATURDAY)
+                    );
+                })
+                .collect(Collectors.toList());
+    }
+
+    /** Attendance history for the teacher's classroom (or one student) between two dates, one row per week. */
+    @GetMapping("/history")
+    public List<AttendanceHistoryRowDTO> history(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String rollNumber,
+            HttpSession session) {
+
+        Teacher teacher = sessionTeacher(session);
+
+        LocalDate fromWeek = AttendanceLedger.weekStartOf(from);
+        LocalDate toWeek = AttendanceLedger.weekStartOf(to);
+        List<AttendanceLedger> rows = rollNumber == null
+                ? attendanceLedgerRepository.findByClassroomCodeAndWeekStartBetweenOrderByRollNumberAscWeekStartAsc(
+                        teacher.getClassroomCode(), fromWeek, toWeek)
+                : attendanceLedgerRepository.findByRollNumberAndWeekStartBetweenOrderByWeekStartAsc(
+                        rollNumber, fromWeek, toWeek).stream()
+                        .filter(row -> teacher.getClassroomCode().equals(row.getClassroomCode()))
+                        .collect(Collectors.toList());
+
+        return rows.stream()
+                .map(row -> AttendanceHistoryRowDTO.of(row, from, to))
                 .collect(Collectors.toList());
     }
 
-    
+    /** Per-student and per-day attendance percentages for the teacher's classroom between two dates. */
+    @GetMapping("/report")
+    public ClassroomReportDTO report(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpSession session) {
+        return attendanceReportService.report(sessionTeacher(session).getClassroomCode(), from, to);
+    }
+
+    /** Same range as /report as a packed bitset matrix (see AttendanceMatrix#toBytes). */
+    @GetMapping(value = "/report/matrix", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> reportMatrix(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpSession session) {
+        byte[] body = attendanceReportService
+                .buildMatrix(sessionTeacher(session).getClassroomCode(), from, to)
+                .toBytes();
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"attendance-" + from + "-" + to + ".atmx\"")
+                .body(body);
+    }
+
+    /**
+     * Attendance history for the teacher's classroom written straight to the response while the
+     * ledger is read; format=csv (one line per day) or format=columnar (see AttendanceExportService).
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpSession session) {
+        String classroomCode = sessionTeacher(session).getClassroomCode();
+        // Checked here: once the streaming body is returned the 200 is already committed
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().body("Export end date is before its start date");
+        }
+        AttendanceExportService.Format exportFormat;
+        try {
+            exportFormat = AttendanceExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown export format: " + format);
+        }
+        boolean csv = exportFormat == AttendanceExportService.Format.CSV;
+
+        StreamingResponseBody body = out -> attendanceExportService.export(classroomCode, from, to, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_OCTET_STREAM)
+                .header("Content-Disposition", "attachment; filename=\"attendance-" + from + "-" + to
+                        + (csv ? ".csv" : ".atex") + "\"")
+                .body(body);
+    }
+
+    private Teacher sessionTeacher(HttpSession session) {
+        String teacherId = (String) session.getAttribute("teacherId");
+        return teacherRepository.findByTeacherId(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+    }
 
       @PostMapping("/submit-otp")
         public ResponseEntity<String> submitOtp(@RequestBody SubmitOtpRequest request) {
@@ -100,15 +206,10 @@ public class AttendanceController {
 
         LocalDate today = LocalDate.now();
 
-        if (attendanceRepository.existsByStudentAndDate(student, today))
-            return ResponseEntity.ok("Attendance already marked");
-
-        Attendance attendance = new Attendance();
-        attendance.setStudent(student);
-        attendance.setDate(today);
-        attendance.setPresent(true);
-
-        attendanceRepository.save(attendance);
+        // Idempotent: a repeated or concurrent submit lands on the same (student, date) row
+        attendanceUpsertService.markPresence(student.getId(), student.getRollNumber(), today, true);
+        dashboardCache.invalidate(student.getClassroomCode());
+        attendanceService.updateWeeklyAttendance(student, today, true);
 
         // clear OTP
         student.setOtp(null);
@@ -126,4 +227,23 @@ public class AttendanceController {
         return ResponseEntity.ok("Daily attendance reset successfully");
     }
 
+    // Rows touched and duration of the last daily reset and student OTP purge
+    @GetMapping("/maintenance/reports")
+    public List<MaintenanceJobReportDTO> maintenanceReports() {
+        List<MaintenanceJobReportDTO> reports = attendanceMaintenanceService.lastReports();
+        MaintenanceJobReportDTO purge = studentOtpPurgeService.lastReport();
+        if (purge != null) reports.add(purge);
+        return reports;
+    }
+
+    // Call sites where virtual threads blocked while pinned (empty unless the pinning monitor runs)
+    @GetMapping("/diagnostics/pinning")
+    public ResponseEntity<?> pinnedThreads() {
+        if (!virtualThreadPinningMonitor.isRunning()) {
+            return ResponseEntity.status(404).body("Pinning monitor is not running (diagnostics.pinning.enabled)");
+        }
+        List<PinnedThreadSiteDTO> sites = virtualThreadPinningMonitor.report();
+        return ResponseEntity.ok(sites);
+    }
+
 }
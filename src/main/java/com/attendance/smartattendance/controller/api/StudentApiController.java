@@ -1,24 +1,33 @@
 package com.attendance.smartattendance.controller.api;
 
 import com.attendance.smartattendance.dto.SubmitOtpRequest;
+import com.attendance.smartattendance.service.OtpRateLimiter;
 import com.attendance.smartattendance.service.OtpService;
+import com.attendance.smartattendance.service.OtpStatusStreamService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/students")
 public class StudentApiController {
     
     @Autowired private OtpService otpService;
+    @Autowired private OtpStatusStreamService otpStatusStreamService;
+    @Autowired private OtpRateLimiter otpRateLimiter;
 
     // ✅ Student submits OTP (uses StudentOtp table and creates Attendance on success)
     @PostMapping("/submit-otp")
-    public ResponseEntity<?> submitOtp(@RequestBody SubmitOtpRequest submitOtpRequest) {
-        if (otpService.getNormalOtpRemainingSeconds() <= 0) {
-            return ResponseEntity.badRequest()
-                    .body("OTP not generated or expired");
-        }
+    public ResponseEntity<?> submitOtp(@RequestBody SubmitOtpRequest submitOtpRequest, HttpServletRequest httpRequest) {
+        // 429 before anything touches the database; outside the try so it is not turned into a 400
+        otpRateLimiter.check(OtpRateLimiter.Endpoint.SUBMIT_OTP, httpRequest.getRemoteAddr(), submitOtpRequest.getRollNumber());
+        // verifyOtp rejects the submit when the student's classroom has no open OTP window
         try {
             String result = otpService.verifyOtp(submitOtpRequest.getRollNumber(), submitOtpRequest.getOtp());
             return ResponseEntity.ok(result);
@@ -28,19 +37,34 @@ public class StudentApiController {
     }
 
 
+    // Polling fallback for browsers without EventSource; short public caching lets proxies absorb the load
     @GetMapping("/otp-status")
-    public boolean otpStatus() {
-        // Return true if a normal OTP exists and is still valid
-        return otpService.getNormalOtpRemainingSeconds() > 0;
+    public ResponseEntity<Boolean> otpStatus(@RequestParam(required = false) String classroomCode) {
+        // Return true if a normal OTP exists and is still valid (for the classroom, when given)
+        boolean open = (classroomCode == null || classroomCode.isEmpty())
+                ? otpService.getNormalOtpRemainingSeconds() > 0
+                : otpService.getNormalOtpRemainingSeconds(classroomCode) > 0;
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.SECONDS).cachePublic())
+                .body(open);
+    }
+
+    // Server-sent "otp-opened" / "otp-closed" events for the classroom (all classrooms when omitted)
+    @GetMapping(value = "/otp-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter otpStream(@RequestParam(required = false) String classroomCode) {
+        return otpStatusStreamService.subscribe(classroomCode);
     }
 
     // 🔁 Student requests OTP again
     @PostMapping("/request-otp")
-    public ResponseEntity<?> requestOtpAgain(@RequestBody(required = false) java.util.Map<String, String> body) {
+    public ResponseEntity<?> requestOtpAgain(@RequestBody(required = false) java.util.Map<String, String> body,
+                                             HttpServletRequest httpRequest) {
+        // Get roll number from request body or session if available
+        String rollNumber = (body != null) ? body.get("rollNumber") : null;
+        // Each accepted call costs queries and an email, so limit before any of it
+        otpRateLimiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, httpRequest.getRemoteAddr(), rollNumber);
+
         try {
-            // Get roll number from request body or session if available
-            String rollNumber = (body != null) ? body.get("rollNumber") : null;
-            
         if (rollNumber != null && !rollNumber.isEmpty()) {
                 otpService.generateRequestOtp(rollNumber);  // ✅ updated method
             return ResponseEntity.ok("OTP request sent. Check your email.");
@@ -6,24 +6,38 @@ import com.attendance.smartattendance.entity.Teacher;
 import com.attendance.smartattendance.repository.AttendanceRepository;
 import com.attendance.smartattendance.repository.StudentRepository;
 import com.attendance.smartattendance.repository.TeacherRepository;
+import com.attendance.smartattendance.service.ActiveOtpCache;
 import com.attendance.smartattendance.service.AttendanceService;
-import com.attendance.smartattendance.service.EmailService;
+import com.attendance.smartattendance.service.AttendanceTallyStreamService;
+import com.attendance.smartattendance.service.DashboardCache;
+import com.attendance.smartattendance.service.LoginFailureCache;
+import com.attendance.smartattendance.service.MailDeliveryEngine;
+import com.attendance.smartattendance.service.NotificationOutboxService;
+import com.attendance.smartattendance.service.OtpRateLimiter;
 import com.attendance.smartattendance.service.OtpService;
+import com.attendance.smartattendance.service.PasswordHashingService;
+import com.attendance.smartattendance.service.StudentImportService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/teacher")
@@ -33,22 +47,43 @@ public class TeacherAuthController {
     @Autowired private StudentRepository studentRepository;
     @Autowired private AttendanceRepository attendanceRepository;
     @Autowired private AttendanceService attendanceService;
-    @Autowired private EmailService emailService;
     @Autowired private OtpService otpService;
-    @Autowired private BCryptPasswordEncoder passwordEncoder;
+    @Autowired private ActiveOtpCache activeOtpCache;
+    @Autowired private DashboardCache dashboardCache;
+    @Autowired private MailDeliveryEngine mailDeliveryEngine;
+    @Autowired private NotificationOutboxService notificationOutboxService;
+    @Autowired private AttendanceTallyStreamService attendanceTallyStreamService;
+    @Autowired private PasswordHashingService passwordHashingService;
+    @Autowired private LoginFailureCache loginFailureCache;
+    @Autowired private StudentImportService studentImportService;
+    @Autowired private OtpRateLimiter otpRateLimiter;
+    @Autowired private TransactionTemplate transactionTemplate;
 
     //  LOGIN
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody TeacherLoginRequest request,HttpSession session) {
 
+    // Same wrong password again: answered without a lookup or a hash
+    if (loginFailureCache.isKnownFailure(request.getTeacherId(), request.getPassword())) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body("Invalid password");
+    }
+
     Teacher teacher = teacherRepository.findByTeacherId(request.getTeacherId())
             .orElseThrow(() -> new RuntimeException("Teacher not found"));
 
-    if (!passwordEncoder.matches(request.getPassword(), teacher.getPassword())) {
+    if (!passwordHashingService.matches(request.getPassword(), teacher.getPassword())) {
+        loginFailureCache.recordFailure(teacher.getTeacherId(), request.getPassword());
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body("Invalid password");
     }
 
+    // Hash stored with an older, lower work factor: re-hash now that the password is known
+    if (passwordHashingService.needsUpgrade(teacher.getPassword())) {
+        teacher.setPassword(passwordHashingService.encode(request.getPassword()));
+        teacherRepository.save(teacher);
+    }
+
     if (!teacher.isVerified()) {
     return ResponseEntity.status(HttpStatus.FORBIDDEN)
            .body("Account not verified. Please verify your email.");
@@ -60,10 +95,12 @@ public class TeacherAuthController {
 
 
     //  REGISTER (now sends verification link)
+    // Duplicates are rejected before hashing, so they cost no BCrypt time; the hash runs outside
+    // any transaction, then the teacher row and its verification email are written in one
     @PostMapping("/register")
     public ResponseEntity<String> register(@RequestBody Teacher teacher) {
 
-        if (teacherRepository.existsById(teacher.getTeacherId())) {
+        if (teacherRepository.existsByTeacherId(teacher.getTeacherId())) {
             return ResponseEntity.badRequest().body("Teacher ID already exists");
         }
 
@@ -71,7 +108,7 @@ public class TeacherAuthController {
             return ResponseEntity.badRequest().body("Email already in use");
         }
 
-        teacher.setPassword(passwordEncoder.encode(teacher.getPassword()));
+        teacher.setPassword(passwordHashingService.encode(teacher.getPassword()));
         teacher.setClassroomCode(UUID.randomUUID().toString().substring(0, 6));
 
         // create verification token and mark unverified
@@ -79,14 +116,16 @@ public class TeacherAuthController {
         teacher.setVerificationToken(token);
         teacher.setVerified(false);
 
-        teacherRepository.save(teacher);
-
         String verifyLink = "http://localhost:8080/api/teacher/verify?token=" + token;
-        emailService.sendMail(
-                teacher.getEmail(),
-                "Verify your account",
-                "Click to verify your account: " + verifyLink
-        );
+        transactionTemplate.executeWithoutResult(tx -> {
+            teacherRepository.save(teacher);
+            notificationOutboxService.enqueue(
+                    "verify-account:" + token,
+                    teacher.getEmail(),
+                    "Verify your account",
+                    "Click to verify your account: " + verifyLink
+            );
+        });
 
         System.out.println(verifyLink);
 
@@ -108,6 +147,7 @@ public class TeacherAuthController {
     }
 
     //  FORGOT PASSWORD
+    @Transactional
     @PostMapping("/forgot-password")
     public String forgotPassword(@RequestBody ForgotPasswordRequest request) {
 
@@ -115,16 +155,21 @@ public class TeacherAuthController {
                 .orElseThrow(() ->
                         new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid email"));
 
-        String otp = String.valueOf((int) (Math.random() * 900000) + 100000);
-
-        teacher.setResetOtp(otp);
-        teacher.setOtpExpiry(LocalDateTime.now().plusMinutes(2));
-        teacherRepository.save(teacher);
+        // A repeated request while the OTP is still valid re-uses it, so the outbox dedupes the email
+        String otp = teacher.getResetOtp();
+        if (otp == null || teacher.getOtpExpiry() == null || teacher.getOtpExpiry().isBefore(LocalDateTime.now())) {
+            otp = String.valueOf((int) (Math.random() * 900000) + 100000);
+            teacher.setResetOtp(otp);
+            teacher.setOtpExpiry(LocalDateTime.now().plusMinutes(2));
+            teacherRepository.save(teacher);
+        }
 
-        emailService.sendMail(
+        notificationOutboxService.enqueue(
+                "password-reset:" + teacher.getId() + ":" + otp,
                 teacher.getEmail(),
                 "Password Reset OTP",
-                "Your OTP is: " + otp + " (Valid for 2 minutes)"
+                "Your OTP is: " + otp + " (Valid for 2 minutes)",
+                teacher.getOtpExpiry()
         );
 
         System.out.println("Your OTP: "+otp);
@@ -133,7 +178,9 @@ public class TeacherAuthController {
     }
 
     @PostMapping("/verify-otp")
-    public String verifyOtp(@RequestBody VerifyOtpRequest request) {
+    public String verifyOtp(@RequestBody VerifyOtpRequest request, HttpServletRequest httpRequest) {
+        // Reset codes are 6 digits: cap guesses per email and per client before the lookup
+        otpRateLimiter.check(OtpRateLimiter.Endpoint.TEACHER_VERIFY_OTP, httpRequest.getRemoteAddr(), request.getEmail());
 
         Teacher teacher = teacherRepository.findByEmail(request.getEmail())
                 .orElseThrow(() ->
@@ -158,10 +205,12 @@ public class TeacherAuthController {
         Teacher teacher = teacherRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Email not found"));
 
-        teacher.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        teacher.setPassword(passwordHashingService.encode(request.getNewPassword()));
         teacher.setResetOtp(null);
         teacher.setOtpExpiry(null);
         teacherRepository.save(teacher);
+        // A previously rejected password may be the new one
+        loginFailureCache.invalidate(teacher.getTeacherId());
 
         return "PASSWORD UPDATED";
     }
@@ -181,10 +230,28 @@ public class TeacherAuthController {
         student.setClassroomCode(teacher.getClassroomCode());
         student.setPresentToday(null);
         studentRepository.save(student);
+        dashboardCache.invalidate(teacher.getClassroomCode());
 
         return ResponseEntity.ok("Student added successfully");
     }
 
+    // Many students in one upload: CSV (with a header row) or NDJSON, streamed from the request body
+    @PostMapping(value = "/import-students", consumes = {"text/csv", "application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<StudentImportReportDTO> importStudents(HttpServletRequest request, HttpSession session) throws IOException {
+
+        String teacherID = (String) session.getAttribute("teacherId");
+
+        Teacher teacher = teacherRepository.findByTeacherId(teacherID)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+        StudentImportService.Format format = request.getContentType().contains("ndjson")
+                ? StudentImportService.Format.NDJSON
+                : StudentImportService.Format.CSV;
+        StudentImportReportDTO report =
+                studentImportService.importStudents(teacher.getClassroomCode(), request.getInputStream(), format);
+        return report.getError() == null ? ResponseEntity.ok(report) : ResponseEntity.badRequest().body(report);
+    }
+
     // ✅ Edit / Update Student (Teacher only)
     @PutMapping("/edit-student/{id}")
     public ResponseEntity<?> editStudent(
@@ -198,6 +265,7 @@ public class TeacherAuthController {
         student.setEmail(updatedStudent.getEmail());
 
         studentRepository.save(student);
+        dashboardCache.invalidate(student.getClassroomCode());
 
         return ResponseEntity.ok("Student updated successfully");
     }
@@ -231,6 +299,33 @@ public class TeacherAuthController {
         return ResponseEntity.ok("Attendance updated successfully");
     }
 
+    // Bulk form of the above: [{studentId, attendance}], applied together, one result per row
+    @PutMapping("/update-student-attendance")
+    public ResponseEntity<?> updateStudentsAttendance(
+            @RequestBody(required = false) List<AttendanceUpdateRequest> updates,
+            HttpSession session
+    ) {
+        String teacherId = (String) session.getAttribute("teacherId");
+
+        if (teacherId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("Teacher not authenticated");
+        }
+
+        if (updates == null || updates.isEmpty() || updates.stream().anyMatch(Objects::isNull)) {
+            return ResponseEntity.badRequest().body("No attendance updates given");
+        }
+        if (updates.size() > attendanceService.getBulkUpdateMaxRows()) {
+            return ResponseEntity.badRequest()
+                    .body("At most " + attendanceService.getBulkUpdateMaxRows() + " rows per update");
+        }
+
+        Teacher teacher = teacherRepository.findByTeacherId(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+        return ResponseEntity.ok(attendanceService.updateAttendance(teacher.getClassroomCode(), updates));
+    }
+
     @GetMapping("/all-students")
     public List<StudentDashboardDTO> getAllStudents(HttpSession session) {
 
@@ -239,20 +334,31 @@ public class TeacherAuthController {
         Teacher teacher = teacherRepository.findByTeacherId(teacherId)
                 .orElseThrow(() -> new RuntimeException("Teacher not found"));
 
-        return studentRepository.findByClassroomCode(teacher.getClassroomCode())
-                .stream()
-                .map(student -> {
-                    StudentDashboardDTO dto = new StudentDashboardDTO();
-                    dto.setId(student.getId());
-                    dto.setName(student.getName());
-                    dto.setRollNumber(student.getRollNumber());
-                    dto.setEmail(student.getEmail());
-                    dto.setPresentToday(
-                            attendanceService.isStudentPresentToday(student)
-                    );
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        // One projection query (students LEFT JOIN today's attendance), shared briefly between refreshes
+        return dashboardCache.get(teacher.getClassroomCode(),
+                () -> studentRepository.findDashboardRows(teacher.getClassroomCode(), LocalDate.now()));
+    }
+
+
+    // Live "attendance" events ({rollNumber, status}) for the teacher's classroom
+    @GetMapping(value = "/attendance-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter attendanceStream(HttpSession session) {
+
+        String teacherId = (String) session.getAttribute("teacherId");
+
+        Teacher teacher = teacherRepository.findByTeacherId(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+        return attendanceTallyStreamService.subscribe(teacher.getClassroomCode());
+    }
+
+    @GetMapping("/attendance-stream/stats")
+    public ResponseEntity<?> attendanceStreamStats(HttpSession session) {
+        if (session.getAttribute("teacherId") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("Teacher not authenticated");
+        }
+        return ResponseEntity.ok(attendanceTallyStreamService.stats());
     }
 
 
@@ -264,6 +370,7 @@ public class TeacherAuthController {
 
         attendanceRepository.deleteByStudent(student);
         studentRepository.delete(student);
+        dashboardCache.invalidate(student.getClassroomCode());
 
         return ResponseEntity.ok("Student Deleted Successfully");
     }
@@ -276,13 +383,84 @@ public class TeacherAuthController {
 
     //  ATTENDANCE OTP
     @PostMapping("/send-otp")
-    public ResponseEntity<?> sendOtp() {
-    // Send normal OTP to all students
-    otpService.sendOtpToAllStudents();
-    return ResponseEntity.ok().body(Map.of("message", "Normal OTP sent to all students successfully"));
+    public ResponseEntity<?> sendOtp(HttpSession session) {
+    String teacherId = (String) session.getAttribute("teacherId");
+    if (teacherId == null) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body("Teacher not authenticated");
+    }
+
+    // Send normal OTP to the teacher's classroom; emails go out in the background
+    OtpDispatchStatusDTO job = otpService.sendOtpForTeacher(teacherId);
+    return ResponseEntity.accepted().body(Map.of(
+            "message", "OTP dispatch started",
+            "jobId", job.getJobId(),
+            "statusUrl", "/api/teacher/send-otp/" + job.getJobId()
+    ));
+    }
+
+    // Progress of a dispatch started by send-otp
+    @GetMapping("/send-otp/{jobId}")
+    public ResponseEntity<?> sendOtpStatus(@PathVariable String jobId, HttpSession session) {
+        String teacherId = (String) session.getAttribute("teacherId");
+        if (teacherId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("Teacher not authenticated");
+        }
+
+        // Another classroom's job answers the same as an unknown id
+        return otpService.getDispatchStatus(jobId, teacherId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown job id"));
+    }
+
+    // Rows and emails generated by OTP dispatches for the teacher's classroom
+    @GetMapping("/otp-dispatch/metrics")
+    public ResponseEntity<?> otpDispatchMetrics(HttpSession session) {
+        String teacherId = (String) session.getAttribute("teacherId");
+        if (teacherId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("Teacher not authenticated");
+        }
+
+        Teacher teacher = teacherRepository.findByTeacherId(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+        return ResponseEntity.ok(otpService.getDispatchMetrics(teacher.getClassroomCode()));
+    }
+
+    // Hit/miss/eviction counters of the in-memory OTP verification cache
+    @GetMapping("/otp-cache/stats")
+    public ResponseEntity<?> otpCacheStats(HttpSession session) {
+        if (session.getAttribute("teacherId") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("Teacher not authenticated");
+        }
+        return ResponseEntity.ok(activeOtpCache.stats());
+    }
+
+    // Account emails waiting in / sent from / given up by the notification outbox
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<?> outboxStats(HttpSession session) {
+        if (session.getAttribute("teacherId") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("Teacher not authenticated");
+        }
+        return ResponseEntity.ok(notificationOutboxService.stats());
+    }
+
+    // Queue depth, open SMTP connections and delivery counters of the mail engine
+    @GetMapping("/mail/stats")
+    public ResponseEntity<?> mailStats(HttpSession session) {
+        if (session.getAttribute("teacherId") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("Teacher not authenticated");
+        }
+        return ResponseEntity.ok(mailDeliveryEngine.stats());
     }
 
     // ===== Account deletion flow =====
+    @Transactional
     @PostMapping("/request-delete")
     public ResponseEntity<String> requestDelete(@RequestBody Map<String, String> body) {
         String email = body.get("email");
@@ -297,10 +475,12 @@ public class TeacherAuthController {
         teacherRepository.save(teacher);
 
         String deleteLink = "http://localhost:8080/api/teacher/verify-delete?token=" + token;
-        emailService.sendMail(
+        notificationOutboxService.enqueue(
+                "delete-account:" + token,
                 teacher.getEmail(),
                 "Confirm account deletion",
-                "Click to delete your account: " + deleteLink
+                "Click to delete your account: " + deleteLink,
+                teacher.getDeleteTokenExpiry()
         );
         System.out.println(deleteLink);
         return ResponseEntity.ok("Verification link sent to your email. Click it to confirm account deletion.");
@@ -321,6 +501,7 @@ public class TeacherAuthController {
             attendanceRepository.deleteByStudent(s);
         }
         studentRepository.deleteAll(students);
+        dashboardCache.invalidate(teacher.getClassroomCode());
 
         // Delete teacher account
         teacherRepository.delete(teacher);
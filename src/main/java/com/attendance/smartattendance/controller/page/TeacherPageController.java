@@ -1,11 +1,13 @@
 package com.attendance.smartattendance.controller.page;
 
+import com.attendance.smartattendance.dto.OtpDispatchStatusDTO;
 import com.attendance.smartattendance.service.OtpService;
 import jakarta.servlet.http.HttpSession;
 
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -42,9 +44,13 @@ public class TeacherPageController {
 
 
     @PostMapping("/teacher/send-otp")
-    public ResponseEntity<?> sendOtp() {
-        otpService.sendOtpToAllStudents();
-        return ResponseEntity.ok("OTP sent to all students");
+    public ResponseEntity<?> sendOtp(HttpSession session) {
+        String teacherId = (String) session.getAttribute("teacherId");
+        if (teacherId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Teacher not authenticated");
+        }
+        OtpDispatchStatusDTO job = otpService.sendOtpForTeacher(teacherId);
+        return ResponseEntity.accepted().body("OTP dispatch started, job id: " + job.getJobId());
     }
 
     @GetMapping("/teacher/register")
@@ -0,0 +1,44 @@
+package com.attendance.smartattendance.dto;
+
+import com.attendance.smartattendance.entity.AttendanceLedger;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * One student-week of attendance history; days outside the requested range are null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceHistoryRowDTO {
+    private String rollNumber;
+    private LocalDate weekStart;
+    private String mon; // P / A / null
+    private String tue;
+    private String wed;
+    private String thu;
+    private String fri;
+    private String sat;
+    private int daysPresent;
+    private int daysRecorded;
+
+    public static AttendanceHistoryRowDTO of(AttendanceLedger row, LocalDate from, LocalDate to) {
+        String[] days = new String[6];
+        int present = 0;
+        int recorded = 0;
+        for (int i = 0; i < days.length; i++) {
+            LocalDate date = row.getWeekStart().plusDays(i);
+            if (date.isBefore(from) || date.isAfter(to)) continue;
+
+            days[i] = row.statusOn(DayOfWeek.of(i + 1));
+            if (days[i] != null) recorded++;
+            if ("P".equals(days[i])) present++;
+        }
+        return new AttendanceHistoryRowDTO(row.getRollNumber(), row.getWeekStart(),
+                days[0], days[1], days[2], days[3], days[4], days[5], present, recorded);
+    }
+}
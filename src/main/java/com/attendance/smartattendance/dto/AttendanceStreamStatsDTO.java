@@ -0,0 +1,17 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters for the live attendance stream behind the teacher dashboard.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceStreamStatsDTO {
+    private long eventsPublished;
+    private long subscribers;
+    private long eventsDropped; // sends that failed; the subscriber is disconnected
+}
@@ -0,0 +1,12 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.Data;
+
+/**
+ * One row of a bulk manual attendance update; attendance is "P" or "A".
+ */
+@Data
+public class AttendanceUpdateRequest {
+    private Long studentId;
+    private String attendance;
+}
@@ -0,0 +1,19 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one row of a bulk manual attendance update, in request order.
+ * status is UPDATED, NOT_FOUND, OTHER_CLASSROOM, TOO_EARLY or INVALID_VALUE.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceUpdateResultDTO {
+    private Long studentId;
+    private String rollNumber;
+    private String attendance;
+    private String status;
+}
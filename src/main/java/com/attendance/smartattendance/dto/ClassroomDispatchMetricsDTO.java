@@ -0,0 +1,20 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running totals of OTP dispatches for one classroom since the server started.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassroomDispatchMetricsDTO {
+    private String classroomCode;
+    private long dispatches;
+    private long studentsTargeted;
+    private long rowsWritten;
+    private long emailsSent;
+    private long emailsFailed;
+}
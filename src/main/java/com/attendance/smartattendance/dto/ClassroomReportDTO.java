@@ -0,0 +1,22 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Attendance percentages for a classroom over a date range, per student and per day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassroomReportDTO {
+    private String classroomCode;
+    private LocalDate from;
+    private LocalDate to;
+    private List<StudentReportRowDTO> students;
+    private List<DayReportRowDTO> days; // days with at least one recorded entry
+}
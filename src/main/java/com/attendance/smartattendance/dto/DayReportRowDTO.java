@@ -0,0 +1,17 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayReportRowDTO {
+    private LocalDate date;
+    private int present;
+    private int recorded;
+    private double percentage;
+}
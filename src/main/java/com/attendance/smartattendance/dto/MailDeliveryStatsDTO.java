@@ -0,0 +1,21 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Queue depth, connection pool and delivery counters of the mail delivery engine.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailDeliveryStatsDTO {
+    private int queued;
+    private int openConnections;
+    private long connectionsOpened;
+    private long delivered;
+    private long failed;
+    private long retries;
+    private double deliveredPerSecond; // over the last second
+}
@@ -0,0 +1,22 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * What one run of a bulk maintenance job (daily reset, student OTP purge) touched and how long it took.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaintenanceJobReportDTO {
+    private String job;
+    private long rowsTouched;
+    private int chunks;
+    private int parallelism;
+    private long durationMillis;
+    private LocalDateTime startedAt;
+}
@@ -0,0 +1,19 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters for the in-memory OTP verification cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtpCacheStatsDTO {
+    private int size;
+    private int maxEntries;
+    private long hits;
+    private long misses;
+    private long evictions;
+}
@@ -0,0 +1,28 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one OTP fan-out job started by the teacher's Send OTP button.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtpDispatchStatusDTO {
+    private String jobId;
+    private String classroomCode; // "*" when sent to every student
+    private String state;      // RUNNING / COMPLETED / FAILED
+    private int total;         // students picked up by the job
+    private int generated;     // OTPs generated
+    private int persisted;     // OTP rows written to student_otp
+    private int rowsWritten;   // student_otp inserts + students updates
+    private int sent;          // emails accepted by the mail server
+    private int failed;        // emails that could not be sent
+    private String lastError;  // why the last email (or the job) failed, null when nothing failed
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
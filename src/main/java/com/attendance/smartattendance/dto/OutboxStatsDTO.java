@@ -0,0 +1,18 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Notification outbox rows by status.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStatsDTO {
+    private long pending;
+    private long sending;
+    private long sent;
+    private long failed;
+}
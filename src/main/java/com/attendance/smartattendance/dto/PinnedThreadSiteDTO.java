@@ -0,0 +1,20 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Where virtual threads were pinned to their carrier (blocked inside synchronized or native code)
+ * and for how long, from JFR jdk.VirtualThreadPinned events.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinnedThreadSiteDTO {
+    private String site;        // first application frame on the pinned stack
+    private String blockedIn;   // top frame outside the JDK (driver/library code holding the monitor)
+    private long events;
+    private long totalMillis;
+    private long maxMillis;
+}
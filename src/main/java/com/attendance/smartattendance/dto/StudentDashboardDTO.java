@@ -1,8 +1,10 @@
 package com.attendance.smartattendance.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class StudentDashboardDTO {
     private Long id;
     private String name;
@@ -11,4 +13,13 @@ public class StudentDashboardDTO {
 
     private Boolean presentToday; // null = not started
     private boolean otpSent;
+
+    // Used by the StudentRepository dashboard projection
+    public StudentDashboardDTO(Long id, String name, String rollNumber, String email, Boolean presentToday) {
+        this.id = id;
+        this.name = name;
+        this.rollNumber = rollNumber;
+        this.email = email;
+        this.presentToday = presentToday;
+    }
 }
@@ -0,0 +1,29 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of one streaming student import. Every row read is counted exactly once: imported,
+ * or skipped for one of the reasons below. errors lists the first few skipped rows by line.
+ * error is set when the upload as a whole was rejected (a CSV header without the required columns).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportReportDTO {
+    private long rowsRead;
+    private long imported;
+    private long invalid;
+    private long duplicateInFile;
+    private long rollNumberTaken;
+    private long emailTaken;
+    private long conflicts;
+    private int chunks;
+    private long durationMillis;
+    private List<String> errors;
+    private String error;
+}
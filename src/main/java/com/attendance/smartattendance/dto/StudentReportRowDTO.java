@@ -0,0 +1,16 @@
+package com.attendance.smartattendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentReportRowDTO {
+    private String rollNumber;
+    private String name;
+    private int daysPresent;
+    private int daysRecorded;
+    private double percentage;
+}
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "attendance")
+// One row per student and day; AttendanceUpsertService relies on this key for its upserts
+@Table(name = "attendance",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_student_date", columnNames = {"student_id", "date"}))
 public class Attendance {
 
     @Id
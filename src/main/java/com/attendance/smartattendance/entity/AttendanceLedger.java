@@ -0,0 +1,61 @@
+package com.attendance.smartattendance.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Append-only attendance history: one row per student per week. Bit 0 is Monday through bit 5
+ * Saturday; presentMask holds the P days and recordedMask every day that has a P or an A, so
+ * a day that is in recordedMask but not presentMask is an A. Rows are never cleared, so past
+ * weeks stay available for term and month reports. Rows are keyed by student id; rollNumber is
+ * the student's roll number when the week was last marked, null for students without one.
+ */
+@Entity
+@Data
+@Table(name = "attendance_ledger",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "week_start"}),
+        indexes = @Index(name = "idx_ledger_classroom_week", columnList = "classroom_code, week_start"))
+public class AttendanceLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "roll_number")
+    private String rollNumber;
+
+    @Column(name = "classroom_code")
+    private String classroomCode;
+
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart; // Monday of the week
+
+    @Column(name = "present_mask", nullable = false)
+    private int presentMask;
+
+    @Column(name = "recorded_mask", nullable = false)
+    private int recordedMask;
+
+    public static LocalDate weekStartOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // 0 for Sunday, which has no column
+    public static int dayBit(DayOfWeek day) {
+        return day == DayOfWeek.SUNDAY ? 0 : 1 << (day.getValue() - 1);
+    }
+
+    // "P" / "A" / null, like the WeeklyAttendance columns
+    public String statusOn(DayOfWeek day) {
+        int bit = dayBit(day);
+        if (bit == 0 || (recordedMask & bit) == 0) return null;
+        return (presentMask & bit) != 0 ? "P" : "A";
+    }
+}
@@ -0,0 +1,56 @@
+package com.attendance.smartattendance.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * One outbound email, written in the same transaction as the change that caused it and sent
+ * later by NotificationOutboxService. dedupeKey makes enqueueing the same notification twice a
+ * no-op.
+ */
+@Entity
+@Data
+@Table(name = "notification_outbox",
+        uniqueConstraints = @UniqueConstraint(columnNames = "dedupe_key"),
+        indexes = @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"))
+public class NotificationOutbox {
+
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "dedupe_key", nullable = false)
+    private String dedupeKey;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    @Column(columnDefinition = "longtext") // a CLOB mapping fails validation on H2, which reports longtext as varchar
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR) // plain varchar(16) in the migrations, not a native ENUM
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime claimedAt; // when a dispatcher took the row; stale claims are taken again
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+    private LocalDateTime expiresAt; // not sent after this, and removed once it has passed; null = no expiry
+
+    @Column(length = 500)
+    private String lastError;
+}
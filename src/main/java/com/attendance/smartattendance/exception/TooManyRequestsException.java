@@ -0,0 +1,18 @@
+package com.attendance.smartattendance.exception;
+
+/**
+ * Thrown by the OTP rate limiter; answered with 429 and a Retry-After header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,21 @@
+package com.attendance.smartattendance.repository;
+
+import com.attendance.smartattendance.entity.AttendanceLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AttendanceLedgerRepository extends JpaRepository<AttendanceLedger, Long> {
+
+    List<AttendanceLedger> findByWeekStartAndStudentIdIn(LocalDate weekStart, List<Long> studentIds);
+
+    List<AttendanceLedger> findByWeekStartOrderByRollNumber(LocalDate weekStart);
+
+    // Term / month ranges: index range scans on (classroom_code, week_start) and (roll_number, week_start)
+    List<AttendanceLedger> findByClassroomCodeAndWeekStartBetweenOrderByRollNumberAscWeekStartAsc(
+            String classroomCode, LocalDate from, LocalDate to);
+
+    List<AttendanceLedger> findByRollNumberAndWeekStartBetweenOrderByWeekStartAsc(
+            String rollNumber, LocalDate from, LocalDate to);
+}
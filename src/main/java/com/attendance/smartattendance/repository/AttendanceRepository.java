@@ -3,6 +3,9 @@ package com.attendance.smartattendance.repository;
 import com.attendance.smartattendance.entity.Attendance;
 import com.attendance.smartattendance.entity.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,4 +28,17 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
         boolean existsByStudentAndDate(Student student, LocalDate date);
 
         List<Attendance> findByDate(LocalDate date);
+
+        @Query("select min(a.id) from Attendance a where a.date = :date")
+        Long findMinIdByDate(@Param("date") LocalDate date);
+
+        @Query("select max(a.id) from Attendance a where a.date = :date")
+        Long findMaxIdByDate(@Param("date") LocalDate date);
+
+        // Set-based delete of one id range, used by the daily reset
+        @Modifying
+        @Query("delete from Attendance a where a.date = :date and a.id between :fromId and :toId")
+        int deleteByDateAndIdBetween(@Param("date") LocalDate date,
+                                     @Param("fromId") Long fromId,
+                                     @Param("toId") Long toId);
 }
@@ -0,0 +1,43 @@
+package com.attendance.smartattendance.repository;
+
+import com.attendance.smartattendance.entity.NotificationOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    boolean existsByDedupeKey(String dedupeKey);
+
+    long countByStatus(NotificationOutbox.Status status);
+
+    // Pending rows that are due, plus rows whose claim is older than the lease (dispatcher died mid-send)
+    // The status IN (...) lets the database read both cases off the status indexes
+    @Query("select o from NotificationOutbox o " +
+            "where o.status in (com.attendance.smartattendance.entity.NotificationOutbox.Status.PENDING, " +
+            "com.attendance.smartattendance.entity.NotificationOutbox.Status.SENDING) " +
+            "and ((o.status = com.attendance.smartattendance.entity.NotificationOutbox.Status.PENDING and o.nextAttemptAt <= :now) " +
+            "or (o.status = com.attendance.smartattendance.entity.NotificationOutbox.Status.SENDING and o.claimedAt < :staleBefore)) " +
+            "and (o.expiresAt is null or o.expiresAt > :now) " +
+            "order by o.id")
+    List<NotificationOutbox> findDue(@Param("now") LocalDateTime now,
+                                     @Param("staleBefore") LocalDateTime staleBefore,
+                                     Pageable page);
+
+    @Modifying
+    @Query("delete from NotificationOutbox o " +
+            "where o.status = com.attendance.smartattendance.entity.NotificationOutbox.Status.SENT and o.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    // Expired rows, except claims still within their lease (the dispatcher will save them back)
+    @Modifying
+    @Query("delete from NotificationOutbox o where o.expiresAt < :now " +
+            "and (o.status <> com.attendance.smartattendance.entity.NotificationOutbox.Status.SENDING " +
+            "or o.claimedAt < :staleBefore)")
+    int deleteExpiredBefore(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+}
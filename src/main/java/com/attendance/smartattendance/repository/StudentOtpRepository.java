@@ -3,6 +3,9 @@ package com.attendance.smartattendance.repository;
 import com.attendance.smartattendance.entity.Student;
 import com.attendance.smartattendance.entity.StudentOtp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,4 +18,17 @@ public interface StudentOtpRepository extends JpaRepository<StudentOtp, Long> {
     List<StudentOtp> findByUsedFalseAndExpiryTimeBefore(LocalDateTime time);
 
     Optional<StudentOtp> findTopByStudentAndUsedFalseOrderByExpiryTimeDesc(Student student);
+
+    @Query("select min(o.id) from StudentOtp o")
+    Long findMinId();
+
+    // Highest id the purge has to reach; rows are inserted in expiry order, so ids below it are mostly expired too
+    @Query("select max(o.id) from StudentOtp o where o.expiryTime < :cutoff")
+    Long findMaxIdExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Set-based delete of one id range, used by the purge
+    @Modifying
+    @Query("delete from StudentOtp o where o.id between :fromId and :toId and o.expiryTime < :cutoff")
+    int deleteExpiredByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId,
+                                 @Param("cutoff") LocalDateTime cutoff);
 }
@@ -1,8 +1,13 @@
 package com.attendance.smartattendance.repository;
 
+import com.attendance.smartattendance.dto.StudentDashboardDTO;
 import com.attendance.smartattendance.entity.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +18,19 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     boolean existsByEmail(String email);
 
     List<Student> findByClassroomCode(String classroomCode);
+
+    // Which of these are already taken; the student import checks a whole chunk per query
+    @Query("select s.rollNumber from Student s where s.rollNumber in :rollNumbers")
+    List<String> findExistingRollNumbers(@Param("rollNumbers") Collection<String> rollNumbers);
+
+    @Query("select s.email from Student s where s.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Teacher dashboard rows: the classroom's students joined with the given day's attendance in one query
+    @Query("select new com.attendance.smartattendance.dto.StudentDashboardDTO(" +
+            "s.id, s.name, s.rollNumber, s.email, coalesce(a.present, false)) " +
+            "from Student s left join Attendance a on a.student = s and a.date = :date " +
+            "where s.classroomCode = :classroomCode order by s.id")
+    List<StudentDashboardDTO> findDashboardRows(@Param("classroomCode") String classroomCode,
+                                                @Param("date") LocalDate date);
 }
@@ -12,5 +12,5 @@ public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     Optional<Teacher> findByDeleteToken(String token);
 
     boolean existsByEmail(String email);
-    boolean existsById(String teacherId);
+    boolean existsByTeacherId(String teacherId);
 }
@@ -0,0 +1,137 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.OtpCacheStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Active class OTPs keyed by roll number, so a submit-otp burst is checked in memory instead of
+ * reading students and student_otp for every request. Entries live for OTP_VALID_SECONDS and are
+ * swept once expired; when the cache is full new OTPs are simply not cached and verification
+ * falls back to the database.
+ */
+@Service
+public class ActiveOtpCache {
+
+    public enum Result { VERIFIED, INVALID, EXPIRED, USED, MISS }
+
+    /**
+     * One cached OTP. The code is kept as an int and the expiry as epoch millis. A verified OTP is
+     * replaced by a used copy (a tombstone) that stays until it expires, so resubmits are answered
+     * from memory.
+     */
+    public static final class Entry {
+        private final long studentId;
+        private final int otp;
+        private final long expiresAtMillis;
+        private final String name;
+        private final String classroomCode;
+        private final boolean used;
+
+        public Entry(long studentId, int otp, long expiresAtMillis, String name, String classroomCode) {
+            this(studentId, otp, expiresAtMillis, name, classroomCode, false);
+        }
+
+        private Entry(long studentId, int otp, long expiresAtMillis, String name, String classroomCode, boolean used) {
+            this.studentId = studentId;
+            this.otp = otp;
+            this.expiresAtMillis = expiresAtMillis;
+            this.name = name;
+            this.classroomCode = classroomCode;
+            this.used = used;
+        }
+
+        private Entry markedUsed() {
+            return new Entry(studentId, otp, expiresAtMillis, name, classroomCode, true);
+        }
+
+        public long getStudentId() { return studentId; }
+        public int getOtp() { return otp; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+        public String getName() { return name; }
+        public String getClassroomCode() { return classroomCode; }
+        public boolean isUsed() { return used; }
+    }
+
+    public record Verification(Result result, Entry entry) {}
+
+    private static final Verification MISS = new Verification(Result.MISS, null);
+
+    @Value("${otp.cache.max-entries:100000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public void put(String rollNumber, Entry entry) {
+        if (entries.size() >= maxEntries && !entries.containsKey(rollNumber)) {
+            evictExpired();
+            if (entries.size() >= maxEntries) return; // full: verification goes to the database
+        }
+        entries.put(rollNumber, entry);
+    }
+
+    public void invalidate(String rollNumber) {
+        entries.remove(rollNumber);
+    }
+
+    // A match swaps the entry for its tombstone atomically, so the same OTP can only be verified once
+    public Verification verify(String rollNumber, String otp) {
+        Entry entry = entries.get(rollNumber);
+        if (entry == null) {
+            misses.increment();
+            return MISS;
+        }
+        hits.increment();
+
+        if (System.currentTimeMillis() > entry.expiresAtMillis) {
+            if (entries.remove(rollNumber, entry)) evictions.increment();
+            return new Verification(Result.EXPIRED, entry);
+        }
+
+        if (entry.used) {
+            return new Verification(Result.USED, entry);
+        }
+
+        if (!matches(entry.otp, otp)) {
+            return new Verification(Result.INVALID, entry);
+        }
+
+        // Losing the swap means a concurrent submit verified it first
+        return entries.replace(rollNumber, entry, entry.markedUsed())
+                ? new Verification(Result.VERIFIED, entry)
+                : new Verification(Result.USED, entry);
+    }
+
+    @Scheduled(fixedDelay = 5_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAtMillis >= now) return false;
+            evictions.increment();
+            return true;
+        });
+    }
+
+    public OtpCacheStatsDTO stats() {
+        return new OtpCacheStatsDTO(entries.size(), maxEntries, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private static boolean matches(int expected, String submitted) {
+        if (submitted == null || submitted.length() != 6) return false;
+        int value = 0;
+        for (int i = 0; i < submitted.length(); i++) {
+            char c = submitted.charAt(i);
+            if (c < '0' || c > '9') return false;
+            value = value * 10 + (c - '0');
+        }
+        return value == expected;
+    }
+}
@@ -0,0 +1,232 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.entity.AttendanceLedger;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Streams a classroom's attendance history straight from the ledger to an OutputStream.
+ *
+ * The rows come from one forward-only query read with a JDBC fetch size (on MySQL,
+ * Integer.MIN_VALUE, which makes Connector/J hand over rows one at a time instead of loading the
+ * result), and each ledger week is written out as soon as it is read. Memory use is the same for
+ * ten students or a million rows.
+ *
+ * CSV is one line per recorded day: rollNumber,name,date,status (P/A).
+ *
+ * COLUMNAR is a DataOutputStream (big-endian) format:
+ * <pre>
+ *   int magic "ATEX", int version, long firstWeek (epoch day of the Monday week indexes count from)
+ *   block*: int rows (0 ends the stream)
+ *           int runs, then per run: UTF rollNumber, UTF name, int rows   (students, run-length)
+ *           short[rows] week index, byte[rows] present mask, byte[rows] recorded mask
+ * </pre>
+ * Masks use the ledger's bits (bit 0 = Monday .. bit 5 = Saturday), clipped to the export range.
+ * Both formats write an empty rollNumber for students without one.
+ */
+@Service
+public class AttendanceExportService {
+
+    public enum Format { CSV, COLUMNAR }
+
+    private static final String EXPORT_SQL =
+            "SELECT l.student_id, l.roll_number, s.name, l.week_start, l.present_mask, l.recorded_mask " +
+            "FROM attendance_ledger l LEFT JOIN students s ON s.id = l.student_id " +
+            "WHERE l.classroom_code = ? AND l.week_start BETWEEN ? AND ? " +
+            "ORDER BY l.roll_number, l.student_id, l.week_start";
+
+    @Autowired private DataSource dataSource;
+
+    // 0 = Integer.MIN_VALUE on MySQL (row streaming), 1000 elsewhere
+    @Value("${attendance.export.fetch-size:0}")
+    private int fetchSize;
+
+    private JdbcTemplate cursorJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        cursorJdbcTemplate.setFetchSize(fetchSize != 0 ? fetchSize : defaultFetchSize());
+    }
+
+    /** Receives ledger weeks in roll number, student, week order; rollNumber may be null. */
+    public interface WeekSink {
+        void week(long studentId, String rollNumber, String name, LocalDate weekStart, int presentMask, int recordedMask)
+                throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    public void export(String classroomCode, LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("Export end date is before its start date");
+        }
+        WeekSink sink = format == Format.COLUMNAR ? new ColumnarWriter(out, from) : new CsvWriter(out);
+
+        LocalDate firstWeek = AttendanceLedger.weekStartOf(from);
+        LocalDate lastWeek = AttendanceLedger.weekStartOf(to);
+        try {
+            cursorJdbcTemplate.query(EXPORT_SQL, rs -> {
+                LocalDate weekStart = rs.getDate(4).toLocalDate();
+                int inRange = rangeMask(weekStart, from, to);
+                int recorded = rs.getInt(6) & inRange;
+                if (recorded == 0) return;
+                try {
+                    sink.week(rs.getLong(1), rs.getString(2), rs.getString(3), weekStart, rs.getInt(5) & recorded, recorded);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // client went away: stop reading the cursor
+                }
+            }, classroomCode, Date.valueOf(firstWeek), Date.valueOf(lastWeek));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        sink.finish();
+    }
+
+    // Day bits of this week that fall inside [from, to]
+    static int rangeMask(LocalDate weekStart, LocalDate from, LocalDate to) {
+        int mask = 0;
+        for (int d = 0; d < 6; d++) {
+            LocalDate day = weekStart.plusDays(d);
+            if (!day.isBefore(from) && !day.isAfter(to)) mask |= 1 << d;
+        }
+        return mask;
+    }
+
+    private int defaultFetchSize() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase().contains("mysql") ? Integer.MIN_VALUE : 1000;
+        } catch (MetaDataAccessException e) {
+            return 1000;
+        }
+    }
+
+    // ==============================
+    // WRITERS
+    // ==============================
+    public static final class CsvWriter implements WeekSink {
+        private final Writer writer;
+
+        public CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write("rollNumber,name,date,status\n");
+        }
+
+        @Override
+        public void week(long studentId, String rollNumber, String name, LocalDate weekStart, int presentMask,
+                         int recordedMask) throws IOException {
+            String roll = rollNumber == null ? "" : escape(rollNumber);
+            String student = name == null ? "" : escape(name);
+            for (int d = 0; d < 6; d++) {
+                int bit = 1 << d;
+                if ((recordedMask & bit) == 0) continue;
+                writer.write(roll);
+                writer.write(',');
+                writer.write(student);
+                writer.write(',');
+                writer.write(weekStart.plusDays(d).toString());
+                writer.write((presentMask & bit) != 0 ? ",P\n" : ",A\n");
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) return value;
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    public static final class ColumnarWriter implements WeekSink {
+        static final int MAGIC = 0x41544558; // "ATEX"
+        static final int VERSION = 1;
+        static final int BLOCK_ROWS = 4096;
+
+        private final DataOutputStream out;
+        private final LocalDate firstWeek;
+
+        // One block of columns; students are run-length encoded in runRolls/runNames/runLengths
+        private final short[] weekIndexes = new short[BLOCK_ROWS];
+        private final byte[] presentMasks = new byte[BLOCK_ROWS];
+        private final byte[] recordedMasks = new byte[BLOCK_ROWS];
+        private final long[] runStudents = new long[BLOCK_ROWS];
+        private final String[] runRolls = new String[BLOCK_ROWS];
+        private final String[] runNames = new String[BLOCK_ROWS];
+        private final int[] runLengths = new int[BLOCK_ROWS];
+        private int rows;
+        private int runs;
+
+        public ColumnarWriter(OutputStream out, LocalDate from) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            this.firstWeek = AttendanceLedger.weekStartOf(from);
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+            this.out.writeLong(firstWeek.toEpochDay());
+        }
+
+        @Override
+        public void week(long studentId, String rollNumber, String name, LocalDate weekStart, int presentMask,
+                         int recordedMask) throws IOException {
+            // A run is one student: students without a roll number all share ""
+            if (runs == 0 || runStudents[runs - 1] != studentId) {
+                runStudents[runs] = studentId;
+                runRolls[runs] = rollNumber == null ? "" : rollNumber;
+                runNames[runs] = name == null ? "" : name;
+                runLengths[runs] = 0;
+                runs++;
+            }
+            runLengths[runs - 1]++;
+            weekIndexes[rows] = (short) ChronoUnit.WEEKS.between(firstWeek, weekStart);
+            presentMasks[rows] = (byte) presentMask;
+            recordedMasks[rows] = (byte) recordedMask;
+            if (++rows == BLOCK_ROWS) flushBlock();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (rows > 0) flushBlock();
+            out.writeInt(0);
+            out.flush();
+        }
+
+        private void flushBlock() throws IOException {
+            out.writeInt(rows);
+            out.writeInt(runs);
+            for (int i = 0; i < runs; i++) {
+                out.writeUTF(runRolls[i]);
+                out.writeUTF(runNames[i]);
+                out.writeInt(runLengths[i]);
+            }
+            for (int i = 0; i < rows; i++) out.writeShort(weekIndexes[i]);
+            out.write(presentMasks, 0, rows);
+            out.write(recordedMasks, 0, rows);
+            rows = 0;
+            runs = 0;
+        }
+    }
+}
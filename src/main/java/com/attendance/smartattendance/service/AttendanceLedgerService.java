@@ -0,0 +1,60 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.entity.AttendanceLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes day marks into the attendance_ledger week rows. A mark is a single upsert that sets or
+ * clears the day's bit; the bit arithmetic is written with MOD/FLOOR rather than bitwise
+ * operators so the same statement runs on MySQL and the H2 test database.
+ */
+@Service
+public class AttendanceLedgerService {
+
+    /** One day's status for one student. */
+    public record LedgerMark(long studentId, String rollNumber, String classroomCode, LocalDate date, boolean present) {}
+
+    // new = old - (old has bit ? bit : 0) + value
+    private static final String MARK_DAY_SQL =
+            "INSERT INTO attendance_ledger (student_id, roll_number, classroom_code, week_start, present_mask, recorded_mask) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "present_mask = present_mask - MOD(FLOOR(present_mask / ?), 2) * ? + ?, " +
+            "recorded_mask = recorded_mask - MOD(FLOOR(recorded_mask / ?), 2) * ? + ?, " +
+            "roll_number = COALESCE(?, roll_number), classroom_code = COALESCE(?, classroom_code)";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    public void markDay(long studentId, String rollNumber, String classroomCode, LocalDate date, boolean present) {
+        Object[] params = params(new LedgerMark(studentId, rollNumber, classroomCode, date, present));
+        if (params != null) jdbcTemplate.update(MARK_DAY_SQL, params);
+    }
+
+    public void markDays(List<LedgerMark> marks) {
+        List<Object[]> rows = new ArrayList<>(marks.size());
+        for (LedgerMark mark : marks) {
+            Object[] params = params(mark);
+            if (params != null) rows.add(params);
+        }
+        if (!rows.isEmpty()) jdbcTemplate.batchUpdate(MARK_DAY_SQL, rows);
+    }
+
+    private static Object[] params(LedgerMark mark) {
+        int bit = AttendanceLedger.dayBit(mark.date().getDayOfWeek());
+        if (bit == 0) return null; // Sundays are not tracked
+
+        int presentBit = mark.present() ? bit : 0;
+        return new Object[]{
+                mark.studentId(), mark.rollNumber(), mark.classroomCode(), AttendanceLedger.weekStartOf(mark.date()),
+                presentBit, bit,
+                bit, bit, presentBit,
+                bit, bit, bit,
+                mark.rollNumber(), mark.classroomCode()
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.MaintenanceJobReportDTO;
+import com.attendance.smartattendance.repository.AttendanceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Bulk version of the daily reset. Instead of loading every row and deleting it one by one,
+ * the job issues set-based UPDATE/DELETE statements over id ranges of
+ * attendance.maintenance.chunk-size rows, one short transaction per range, optionally running
+ * attendance.maintenance.parallelism ranges at once.
+ */
+@Service
+public class AttendanceMaintenanceService {
+
+    @Autowired private AttendanceRepository attendanceRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private DashboardCache dashboardCache;
+
+    @Value("${attendance.maintenance.chunk-size:5000}")
+    private long chunkSize;
+
+    @Value("${attendance.maintenance.parallelism:1}")
+    private int parallelism;
+
+    // Last report per job, for the maintenance reports endpoint
+    private final Map<String, MaintenanceJobReportDTO> lastReports = new ConcurrentHashMap<>();
+
+    public MaintenanceJobReportDTO resetDaily(LocalDate date) {
+        MaintenanceJobReportDTO report = runChunked("reset-daily",
+                attendanceRepository.findMinIdByDate(date),
+                attendanceRepository.findMaxIdByDate(date),
+                (from, to) -> attendanceRepository.deleteByDateAndIdBetween(date, from, to));
+        dashboardCache.invalidateAll();
+        return report;
+    }
+
+    public List<MaintenanceJobReportDTO> lastReports() {
+        return new ArrayList<>(lastReports.values());
+    }
+
+    private MaintenanceJobReportDTO runChunked(String job, Long minId, Long maxId,
+                                               BiFunction<Long, Long, Integer> chunk) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        List<long[]> ranges = new ArrayList<>();
+        if (minId != null && maxId != null) {
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                ranges.add(new long[]{from, Math.min(from + chunkSize - 1, maxId)});
+            }
+        }
+
+        long rows = parallelism > 1 && ranges.size() > 1
+                ? runParallel(ranges, chunk)
+                : ranges.stream().mapToLong(range -> runOne(range, chunk)).sum();
+
+        MaintenanceJobReportDTO report = new MaintenanceJobReportDTO(job, rows, ranges.size(),
+                Math.max(1, parallelism), (System.nanoTime() - start) / 1_000_000, startedAt);
+        lastReports.put(job, report);
+        System.out.println("Maintenance " + job + ": " + rows + " rows in " + ranges.size()
+                + " chunks, " + report.getDurationMillis() + " ms");
+        return report;
+    }
+
+    private long runParallel(List<long[]> ranges, BiFunction<Long, Long, Integer> chunk) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()));
+        try {
+            List<Future<Integer>> results = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                results.add(pool.submit(() -> runOne(range, chunk)));
+            }
+            long rows = 0;
+            for (Future<Integer> result : results) rows += result.get();
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Maintenance job interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Maintenance chunk failed: " + e.getCause().getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int runOne(long[] range, BiFunction<Long, Long, Integer> chunk) {
+        Integer rows = transactionTemplate.execute(status -> chunk.apply(range[0], range[1]));
+        return rows == null ? 0 : rows;
+    }
+}
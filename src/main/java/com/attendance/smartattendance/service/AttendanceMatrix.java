@@ -0,0 +1,199 @@
+package com.attendance.smartattendance.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Students x days attendance held as packed bitsets: one row of long words per student in
+ * {@code present} and a parallel {@code recorded} mask, so a day with no entry is told apart
+ * from an absence. Updates are O(1); per-student totals are popcounts over the row and per-day
+ * totals are kept as running counters.
+ */
+public final class AttendanceMatrix {
+
+    private static final int MAGIC = 0x41544D58; // "ATMX"
+    private static final int VERSION = 1;
+
+    private final String[] rollNumbers;
+    private final Map<String, Integer> indexByRollNumber;
+    private final LocalDate firstDay;
+    private final int days;
+    private final int wordsPerRow;
+    private final long[] present;
+    private final long[] recorded;
+    private final int[] presentPerDay;
+    private final int[] recordedPerDay;
+
+    public AttendanceMatrix(List<String> rollNumbers, LocalDate firstDay, int days) {
+        this(rollNumbers.toArray(String[]::new), firstDay, days);
+    }
+
+    private AttendanceMatrix(String[] rollNumbers, LocalDate firstDay, int days) {
+        this.rollNumbers = rollNumbers;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.wordsPerRow = (days + 63) >>> 6;
+        this.present = new long[rollNumbers.length * wordsPerRow];
+        this.recorded = new long[rollNumbers.length * wordsPerRow];
+        this.presentPerDay = new int[days];
+        this.recordedPerDay = new int[days];
+        this.indexByRollNumber = new HashMap<>(rollNumbers.length * 2);
+        for (int i = 0; i < rollNumbers.length; i++) {
+            if (rollNumbers[i] != null) indexByRollNumber.put(rollNumbers[i], i);
+        }
+    }
+
+    public int students() { return rollNumbers.length; }
+    public int days() { return days; }
+    public LocalDate firstDay() { return firstDay; }
+    public String rollNumber(int student) { return rollNumbers[student]; }
+
+    // -1 when the roll number is not part of the matrix
+    public int indexOf(String rollNumber) {
+        return indexByRollNumber.getOrDefault(rollNumber, -1);
+    }
+
+    public int dayIndex(LocalDate date) {
+        return (int) (date.toEpochDay() - firstDay.toEpochDay());
+    }
+
+    public void set(int student, int day, boolean isPresent) {
+        int word = student * wordsPerRow + (day >>> 6);
+        long bit = 1L << day;
+
+        if ((recorded[word] & bit) == 0) {
+            recorded[word] |= bit;
+            recordedPerDay[day]++;
+        } else if ((present[word] & bit) != 0) {
+            presentPerDay[day]--;
+        }
+
+        if (isPresent) {
+            present[word] |= bit;
+            presentPerDay[day]++;
+        } else {
+            present[word] &= ~bit;
+        }
+    }
+
+    public void clear(int student, int day) {
+        int word = student * wordsPerRow + (day >>> 6);
+        long bit = 1L << day;
+        if ((recorded[word] & bit) == 0) return;
+
+        recorded[word] &= ~bit;
+        recordedPerDay[day]--;
+        if ((present[word] & bit) != 0) {
+            present[word] &= ~bit;
+            presentPerDay[day]--;
+        }
+    }
+
+    // One ledger week (bit 0 = Monday); days outside the matrix are ignored
+    public void applyWeek(int student, LocalDate weekStart, int presentMask, int recordedMask) {
+        int monday = dayIndex(weekStart);
+        for (int i = 0; i < 6; i++) {
+            int bit = 1 << i;
+            int day = monday + i;
+            if ((recordedMask & bit) == 0 || day < 0 || day >= days) continue;
+            set(student, day, (presentMask & bit) != 0);
+        }
+    }
+
+    // "P" / "A" / null
+    public String status(int student, int day) {
+        int word = student * wordsPerRow + (day >>> 6);
+        long bit = 1L << day;
+        if ((recorded[word] & bit) == 0) return null;
+        return (present[word] & bit) != 0 ? "P" : "A";
+    }
+
+    public int presentCount(int student) {
+        return popcount(present, student);
+    }
+
+    public int recordedCount(int student) {
+        return popcount(recorded, student);
+    }
+
+    public int presentOnDay(int day) { return presentPerDay[day]; }
+    public int recordedOnDay(int day) { return recordedPerDay[day]; }
+
+    public double studentPercentage(int student) {
+        return percentage(presentCount(student), recordedCount(student));
+    }
+
+    public double dayPercentage(int day) {
+        return percentage(presentPerDay[day], recordedPerDay[day]);
+    }
+
+    // ==============================
+    // BINARY FORM
+    // ==============================
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + present.length * 16 + rollNumbers.length * 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(firstDay.toEpochDay());
+            out.writeInt(days);
+            out.writeInt(rollNumbers.length);
+            for (String rollNumber : rollNumbers) out.writeUTF(rollNumber == null ? "" : rollNumber); // no roll number: ""
+            for (long word : present) out.writeLong(word);
+            for (long word : recorded) out.writeLong(word);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static AttendanceMatrix fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalArgumentException("Not an attendance matrix");
+            }
+            LocalDate firstDay = LocalDate.ofEpochDay(in.readLong());
+            int days = in.readInt();
+            String[] rollNumbers = new String[in.readInt()];
+            for (int i = 0; i < rollNumbers.length; i++) rollNumbers[i] = in.readUTF();
+
+            AttendanceMatrix matrix = new AttendanceMatrix(rollNumbers, firstDay, days);
+            for (int i = 0; i < matrix.present.length; i++) matrix.present[i] = in.readLong();
+            for (int i = 0; i < matrix.recorded.length; i++) matrix.recorded[i] = in.readLong();
+            matrix.rebuildDayCounters();
+            return matrix;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void rebuildDayCounters() {
+        for (int student = 0; student < rollNumbers.length; student++) {
+            for (int day = 0; day < days; day++) {
+                int word = student * wordsPerRow + (day >>> 6);
+                long bit = 1L << day;
+                if ((recorded[word] & bit) != 0) recordedPerDay[day]++;
+                if ((present[word] & bit) != 0) presentPerDay[day]++;
+            }
+        }
+    }
+
+    private int popcount(long[] bits, int student) {
+        int count = 0;
+        int from = student * wordsPerRow;
+        for (int i = from; i < from + wordsPerRow; i++) count += Long.bitCount(bits[i]);
+        return count;
+    }
+
+    private static double percentage(int part, int whole) {
+        return whole == 0 ? 0 : part * 100.0 / whole;
+    }
+}
@@ -0,0 +1,101 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.ClassroomReportDTO;
+import com.attendance.smartattendance.dto.DayReportRowDTO;
+import com.attendance.smartattendance.dto.StudentReportRowDTO;
+import com.attendance.smartattendance.entity.AttendanceLedger;
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.repository.AttendanceLedgerRepository;
+import com.attendance.smartattendance.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classroom reports built on an {@link AttendanceMatrix} loaded from the attendance ledger, so a
+ * report over a term costs one index range scan and a few bit operations per student-week.
+ */
+@Service
+public class AttendanceReportService {
+
+    // Keeps one request from allocating a matrix for an arbitrary range
+    static final int MAX_REPORT_DAYS = 366;
+
+    @Autowired private StudentRepository studentRepository;
+    @Autowired private AttendanceLedgerRepository attendanceLedgerRepository;
+
+    public AttendanceMatrix buildMatrix(String classroomCode, LocalDate from, LocalDate to) {
+        return buildMatrix(classroomCode, from, to, studentsOf(classroomCode));
+    }
+
+    public ClassroomReportDTO report(String classroomCode, LocalDate from, LocalDate to) {
+        List<Student> students = studentsOf(classroomCode);
+        AttendanceMatrix matrix = buildMatrix(classroomCode, from, to, students);
+
+        List<StudentReportRowDTO> studentRows = new ArrayList<>(students.size());
+        for (int i = 0; i < matrix.students(); i++) {
+            studentRows.add(new StudentReportRowDTO(
+                    matrix.rollNumber(i),
+                    students.get(i).getName(),
+                    matrix.presentCount(i),
+                    matrix.recordedCount(i),
+                    matrix.studentPercentage(i)));
+        }
+
+        List<DayReportRowDTO> dayRows = new ArrayList<>();
+        for (int day = 0; day < matrix.days(); day++) {
+            if (matrix.recordedOnDay(day) == 0) continue;
+            dayRows.add(new DayReportRowDTO(
+                    from.plusDays(day),
+                    matrix.presentOnDay(day),
+                    matrix.recordedOnDay(day),
+                    matrix.dayPercentage(day)));
+        }
+
+        return new ClassroomReportDTO(classroomCode, from, to, studentRows, dayRows);
+    }
+
+    private AttendanceMatrix buildMatrix(String classroomCode, LocalDate from, LocalDate to, List<Student> students) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Report end date is before its start date");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_REPORT_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Report range is limited to " + MAX_REPORT_DAYS + " days");
+        }
+
+        AttendanceMatrix matrix = new AttendanceMatrix(
+                students.stream().map(Student::getRollNumber).toList(), from, (int) days);
+
+        List<AttendanceLedger> weeks = attendanceLedgerRepository
+                .findByClassroomCodeAndWeekStartBetweenOrderByRollNumberAscWeekStartAsc(
+                        classroomCode, AttendanceLedger.weekStartOf(from), AttendanceLedger.weekStartOf(to));
+
+        // Matrix rows follow the student list; ledger rows are keyed by student id
+        Map<Long, Integer> indexById = new HashMap<>(students.size() * 2);
+        for (int i = 0; i < students.size(); i++) indexById.put(students.get(i).getId(), i);
+
+        for (AttendanceLedger week : weeks) {
+            Integer student = indexById.get(week.getStudentId());
+            if (student == null) continue; // student has since been removed
+            matrix.applyWeek(student, week.getWeekStart(), week.getPresentMask(), week.getRecordedMask());
+        }
+        return matrix;
+    }
+
+    private List<Student> studentsOf(String classroomCode) {
+        List<Student> students = new ArrayList<>(studentRepository.findByClassroomCode(classroomCode));
+        // The base schema allows students without a roll number: they are listed last
+        students.sort(Comparator.comparing(Student::getRollNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+        return students;
+    }
+}
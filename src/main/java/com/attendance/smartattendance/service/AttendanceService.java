@@ -1,20 +1,25 @@
 package com.attendance.smartattendance.service;
 
+import com.attendance.smartattendance.dto.AttendanceUpdateRequest;
+import com.attendance.smartattendance.dto.AttendanceUpdateResultDTO;
 import com.attendance.smartattendance.entity.Attendance;
 import com.attendance.smartattendance.entity.Student;
-import com.attendance.smartattendance.entity.WeeklyAttendance;
 import com.attendance.smartattendance.repository.AttendanceRepository;
 import com.attendance.smartattendance.repository.StudentRepository;
-import com.attendance.smartattendance.repository.WeeklyAttendanceRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class AttendanceService {
@@ -23,42 +28,18 @@ public class AttendanceService {
     AttendanceRepository attendanceRepository;
     @Autowired private
     StudentRepository studentRepository;
-    @Autowired private WeeklyAttendanceRepository weeklyAttendanceRepository;
-
-
-    // STUDENT submits OTP
-    public String markAttendance(String rollNumber, String otp) {
-
-        Student student = studentRepository.findByRollNumber(rollNumber)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-
-        Attendance attendance = attendanceRepository
-                .findByStudentAndDate(student, LocalDate.now())
-                .orElseThrow(() -> new RuntimeException("OTP not generated"));
-
-        if (!attendance.getOtp().equals(otp)) {
-            throw new RuntimeException("Invalid OTP");
-        }
-
-
-        if (attendanceRepository.existsByStudentAndDate(student, LocalDate.now())) {
-            throw new RuntimeException("Attendance already marked");
-        }
-
-        if (attendance.getOtpExpiry().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("OTP expired");
-        }
-
-        if (attendance.getPresent()) {
-            throw new RuntimeException("Attendance already marked");
-        }
-
-        attendance.setStudent(student);
-        attendance.setDate(LocalDate.now());
-        attendance.setPresent(true);
-        attendanceRepository.save(attendance);
-
-        return "ATTENDANCE MARKED";
+    @Autowired private DashboardCache dashboardCache;
+    @Autowired private AttendanceTallyStreamService attendanceTallyStreamService;
+    @Autowired private AttendanceMaintenanceService attendanceMaintenanceService;
+    @Autowired private AttendanceLedgerService attendanceLedgerService;
+    @Autowired private AttendanceUpsertService attendanceUpsertService;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Value("${attendance.bulk-update.max-rows:500}")
+    private int bulkUpdateMaxRows;
+
+    public int getBulkUpdateMaxRows() {
+        return bulkUpdateMaxRows;
     }
 
     // TEACHER dashboard
@@ -70,47 +51,14 @@ public class AttendanceService {
     }
 
 
-    public void updateWeekly(Student s, String status) {
-
-        WeeklyAttendance wa = weeklyAttendanceRepository
-                .findByRollNumber(s.getRollNumber())
-                .orElseGet(() -> {
-                    WeeklyAttendance w = new WeeklyAttendance();
-                    w.setRollNumber(s.getRollNumber());
-                    w.setName(s.getName());
-                    return w;
-                });
-
-        DayOfWeek day = LocalDate.now().getDayOfWeek();
-
-        switch (day) {
-            case MONDAY -> wa.setMon(status);
-            case TUESDAY -> wa.setTue(status);
-            case WEDNESDAY -> wa.setWed(status);
-            case THURSDAY -> wa.setThu(status);
-            case FRIDAY -> wa.setFri(status);
-            case SATURDAY -> wa.setSat(status);
-        }
-
-        weeklyAttendanceRepository.save(wa);
-    }
-
     // ===== SEND OTP =====
     public String sendOtp(Long studentId) {
         Student student = studentRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
-        Attendance attendance = attendanceRepository.findByStudentAndDate(student, LocalDate.now())
-                .orElse(new Attendance());
-
         String otp = String.valueOf((int)(Math.random() * 900000) + 100000);
-        attendance.setStudent(student);
-        attendance.setDate(LocalDate.now());
-        attendance.setOtp(otp);
-        attendance.setOtpExpiry(LocalDateTime.now().plusMinutes(2));
-        attendance.setOtpUsed(false);
-        attendance.setRollNumber(student.getRollNumber());
-        attendanceRepository.save(attendance);
+        attendanceUpsertService.issueOtp(student.getId(), student.getRollNumber(), LocalDate.now(),
+                otp, LocalDateTime.now().plusMinutes(2));
 
         return otp; // send via email/SMS in controller
     }
@@ -120,18 +68,14 @@ public class AttendanceService {
         Student student = studentRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
-        Attendance attendance = attendanceRepository.findByStudentAndDate(student, LocalDate.now())
-                .orElseThrow(() -> new RuntimeException("Attendance not found"));
-
-        if (!submittedOtp.equals(attendance.getOtp()) ||
-                attendance.isOtpUsed() ||
-                attendance.getOtpExpiry().isBefore(LocalDateTime.now())) {
+        // Checks and marks P in one statement; only the first of concurrent submits succeeds
+        if (!attendanceUpsertService.consumeOtp(student.getId(), LocalDate.now(), submittedOtp)) {
+            if (!attendanceRepository.existsByStudentAndDate(student, LocalDate.now())) {
+                throw new RuntimeException("Attendance not found");
+            }
             throw new RuntimeException("Invalid or expired OTP");
         }
-
-        attendance.setOtpUsed(true);
-        attendance.setPresent(true); // mark P
-        attendanceRepository.save(attendance);
+        dashboardCache.invalidate(student.getClassroomCode());
 
         updateWeeklyAttendance(student, LocalDate.now(), true);
     }
@@ -143,45 +87,79 @@ public class AttendanceService {
         Student student = studentRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
-        Attendance attendance = attendanceRepository.findByStudentAndDate(student, LocalDate.now())
-                .orElse(new Attendance());
-
-        attendance.setStudent(student);
-        attendance.setDate(LocalDate.now());
-        attendance.setPresent(present);
-        attendance.setRollNumber(student.getRollNumber());
-        attendanceRepository.save(attendance);
+        attendanceUpsertService.markPresence(student.getId(), student.getRollNumber(), LocalDate.now(), present);
+        dashboardCache.invalidate(student.getClassroomCode());
+        attendanceTallyStreamService.publish(student.getClassroomCode(), student.getRollNumber(), present ? "P" : "A");
 
         updateWeeklyAttendance(student, LocalDate.now(), present);
     }
 
-    // ===== UPDATE WEEKLY ATTENDANCE =====
-    public void updateWeeklyAttendance(Student student, LocalDate date, boolean present) {
-        WeeklyAttendance weekly = weeklyAttendanceRepository.findByRollNumber(student.getRollNumber())
-                .orElse(new WeeklyAttendance());
-
-        weekly.setRollNumber(student.getRollNumber());
-        weekly.setName(student.getName());
-
-        DayOfWeek day = date.getDayOfWeek();
-        switch (day) {
-            case MONDAY -> weekly.setMon(present ? "P" : "A");
-            case TUESDAY -> weekly.setTue(present ? "P" : "A");
-            case WEDNESDAY -> weekly.setWed(present ? "P" : "A");
-            case THURSDAY -> weekly.setThu(present ? "P" : "A");
-            case FRIDAY -> weekly.setFri(present ? "P" : "A");
-            case SATURDAY -> weekly.setSat(present ? "P" : "A");
-            default -> {}
+    // ===== BULK MANUAL UPDATE BY TEACHER =====
+    // One student lookup, then every accepted row goes into one transaction as two JDBC batches
+    // (attendance upserts and ledger day bits). Rejected rows are reported and skipped.
+    public List<AttendanceUpdateResultDTO> updateAttendance(String classroomCode, List<AttendanceUpdateRequest> updates) {
+        if (updates.size() > bulkUpdateMaxRows) {
+            throw new RuntimeException("At most " + bulkUpdateMaxRows + " rows per update");
+        }
+
+        List<Long> ids = updates.stream().map(AttendanceUpdateRequest::getStudentId).distinct().toList();
+        Map<Long, Student> students = studentRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+
+        LocalDate today = LocalDate.now();
+        List<AttendanceUpdateResultDTO> results = new ArrayList<>(updates.size());
+        List<AttendanceUpsertService.PresenceMark> marks = new ArrayList<>();
+        List<AttendanceLedgerService.LedgerMark> ledgerMarks = new ArrayList<>();
+
+        for (AttendanceUpdateRequest update : updates) {
+            Student student = update.getStudentId() == null ? null : students.get(update.getStudentId());
+            String status;
+            if (student == null) {
+                status = "NOT_FOUND";
+            } else if (!classroomCode.equals(student.getClassroomCode())) {
+                status = "OTHER_CLASSROOM";
+            } else if (!"P".equals(update.getAttendance()) && !"A".equals(update.getAttendance())) {
+                status = "INVALID_VALUE";
+            } else if (!canManuallyUpdateAttendance(student)) {
+                status = "TOO_EARLY";
+            } else {
+                boolean present = "P".equals(update.getAttendance());
+                marks.add(new AttendanceUpsertService.PresenceMark(student.getId(), student.getRollNumber(), today, present));
+                ledgerMarks.add(new AttendanceLedgerService.LedgerMark(
+                        student.getId(), student.getRollNumber(), classroomCode, today, present));
+                status = "UPDATED";
+            }
+            results.add(new AttendanceUpdateResultDTO(update.getStudentId(),
+                    student == null ? null : student.getRollNumber(), update.getAttendance(), status));
         }
+        if (marks.isEmpty()) return results;
 
-        weeklyAttendanceRepository.save(weekly);
+        transactionTemplate.executeWithoutResult(tx -> {
+            attendanceUpsertService.markPresences(marks);
+            attendanceLedgerService.markDays(ledgerMarks);
+        });
+
+        dashboardCache.invalidate(classroomCode);
+        for (AttendanceLedgerService.LedgerMark mark : ledgerMarks) {
+            attendanceTallyStreamService.publish(classroomCode, mark.rollNumber(), mark.present() ? "P" : "A");
+        }
+        return results;
+    }
+
+    // ===== UPDATE WEEKLY ATTENDANCE =====
+    // Recorded in the week's ledger row; earlier weeks are kept for history
+    public void updateWeeklyAttendance(Student student, LocalDate date, boolean present) {
+        attendanceLedgerService.markDay(student.getId(), student.getRollNumber(), student.getClassroomCode(), date, present);
     }
 
     // ===== CHECK IF MANUAL UPDATE IS ALLOWED (5-minute delay) =====
     public boolean canManuallyUpdateAttendance(Long studentId) {
         Student student = studentRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
+        return canManuallyUpdateAttendance(student);
+    }
 
+    public boolean canManuallyUpdateAttendance(Student student) {
         // If OTP was never generated, manual update is not allowed yet
         if (student.getOtpGeneratedAt() == null) {
             return false;
@@ -196,22 +174,6 @@ public class AttendanceService {
     public void resetDailyAttendance() {
         // Delete all attendance records for today
         // This ensures the daily column resets every day
-        List<Attendance> todayAttendance = attendanceRepository.findByDate(LocalDate.now());
-        attendanceRepository.deleteAll(todayAttendance);
-    }
-
-    // Reset WeeklyAttendance every Monday at midnight (start of new week)
-    @Scheduled(cron = "0 0 0 ? * MON")
-    public void resetWeeklyAttendance() {
-        List<WeeklyAttendance> allWeekly = weeklyAttendanceRepository.findAll();
-        for (WeeklyAttendance wa : allWeekly) {
-            wa.setMon(null);
-            wa.setTue(null);
-            wa.setWed(null);
-            wa.setThu(null);
-            wa.setFri(null);
-            wa.setSat(null);
-            weeklyAttendanceRepository.save(wa);
-        }
+        attendanceMaintenanceService.resetDaily(LocalDate.now());
     }
 }
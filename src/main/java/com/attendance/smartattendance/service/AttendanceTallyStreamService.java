@@ -0,0 +1,50 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.AttendanceStreamStatsDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Live attendance deltas for teacher dashboards: every successful mark publishes
+ * {rollNumber, status} to the subscribers of the student's classroom, so the dashboard updates
+ * one row instead of reloading the whole list.
+ */
+@Service
+public class AttendanceTallyStreamService {
+
+    private final SseBroadcaster broadcaster;
+
+    public AttendanceTallyStreamService(@Value("${attendance.stream.timeout-ms:3600000}") long timeoutMs) {
+        this.broadcaster = new SseBroadcaster(timeoutMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        broadcaster.shutdown();
+    }
+
+    public SseEmitter subscribe(String classroomCode) {
+        return broadcaster.subscribe(classroomCode);
+    }
+
+    // status is "P" or "A"
+    public void publish(String classroomCode, String rollNumber, String status) {
+        if (classroomCode == null) return;
+        broadcaster.publish(classroomCode, "attendance", Map.of("rollNumber", rollNumber, "status", status));
+    }
+
+    @Scheduled(fixedRate = 20_000)
+    public void heartbeat() {
+        broadcaster.heartbeat();
+    }
+
+    public AttendanceStreamStatsDTO stats() {
+        return new AttendanceStreamStatsDTO(broadcaster.getPublished(), broadcaster.getSubscribers(),
+                broadcaster.getDropped());
+    }
+}
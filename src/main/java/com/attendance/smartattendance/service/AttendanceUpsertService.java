@@ -0,0 +1,68 @@
+package com.attendance.smartattendance.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-statement writes to the attendance table. Rows are keyed by (student_id, date), so every
+ * mark is one INSERT ... ON DUPLICATE KEY UPDATE instead of a find followed by a save, and two
+ * requests marking the same student on the same day both land on the same row. Parameters are
+ * repeated rather than using VALUES() so the statements run unchanged on MySQL and H2.
+ */
+@Service
+public class AttendanceUpsertService {
+
+    /** One student's status for one day. */
+    public record PresenceMark(long studentId, String rollNumber, LocalDate date, boolean present) {}
+
+    private static final String MARK_PRESENCE_SQL =
+            "INSERT INTO attendance (student_id, date, present, roll_number, otp_used) VALUES (?, ?, ?, ?, false) " +
+            "ON DUPLICATE KEY UPDATE present = ?, roll_number = ?";
+
+    // A new OTP re-arms the day's row without touching the present flag
+    private static final String ISSUE_OTP_SQL =
+            "INSERT INTO attendance (student_id, date, roll_number, otp, otp_expiry, otp_used) VALUES (?, ?, ?, ?, ?, false) " +
+            "ON DUPLICATE KEY UPDATE roll_number = ?, otp = ?, otp_expiry = ?, otp_used = false";
+
+    // Only the first matching submit flips otp_used, so a replayed OTP updates nothing
+    private static final String CONSUME_OTP_SQL =
+            "UPDATE attendance SET otp_used = true, present = true " +
+            "WHERE student_id = ? AND date = ? AND otp = ? AND otp_used = false AND otp_expiry >= ?";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    public void markPresence(long studentId, String rollNumber, LocalDate date, boolean present) {
+        jdbcTemplate.update(MARK_PRESENCE_SQL, params(new PresenceMark(studentId, rollNumber, date, present)));
+    }
+
+    public void markPresences(List<PresenceMark> marks) {
+        if (marks.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(marks.size());
+        for (PresenceMark mark : marks) rows.add(params(mark));
+        jdbcTemplate.batchUpdate(MARK_PRESENCE_SQL, rows);
+    }
+
+    public void issueOtp(long studentId, String rollNumber, LocalDate date, String otp, LocalDateTime expiry) {
+        jdbcTemplate.update(ISSUE_OTP_SQL,
+                studentId, date, rollNumber, otp, expiry,
+                rollNumber, otp, expiry);
+    }
+
+    // true when this call used the OTP and marked the student present
+    public boolean consumeOtp(long studentId, LocalDate date, String otp) {
+        return jdbcTemplate.update(CONSUME_OTP_SQL, studentId, date, otp, LocalDateTime.now()) == 1;
+    }
+
+    private static Object[] params(PresenceMark mark) {
+        return new Object[]{
+                mark.studentId(), mark.date(), mark.present(), mark.rollNumber(),
+                mark.present(), mark.rollNumber()
+        };
+    }
+}
@@ -0,0 +1,386 @@
+package com.attendance.smartattendance.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind journal for attendance marks verified from the OTP cache.
+ *
+ * Marks are queued in memory (and, when attendance.journal.file is set, appended to a local
+ * journal first). A single flusher group-commits them every flush-interval-ms or max-batch
+ * marks: student_otp used flags, Attendance rows and attendance_ledger day bits are written with
+ * JDBC batches in one transaction. On start-up any marks left in the journal file are replayed;
+ * every write is idempotent, so replaying marks that were already committed is harmless.
+ *
+ * A failed batch is retried retry-attempts times with doubling back-off, then committed mark by
+ * mark so one bad row cannot sink the rest. Marks that still fail go back to the head of the next
+ * batch; a mark that has failed max-attempts rounds is given up, logged in journal-line form and
+ * counted in attendance.writebehind.failed. The journal file is truncated only once every
+ * journaled mark has been committed or given up.
+ *
+ * With attendance.journal.ack=sync the caller waits for the commit; with async it returns once
+ * the mark is queued (and journaled).
+ */
+@Service
+public class AttendanceWriteBehindService {
+
+    /** A verified mark waiting to be written. */
+    public record AttendanceMark(long studentId, String rollNumber, String name, String classroomCode,
+                                 String otp, LocalDate date) {}
+
+    private record PendingMark(AttendanceMark mark, CompletableFuture<Void> committed, int failures) {
+
+        PendingMark(AttendanceMark mark) {
+            this(mark, new CompletableFuture<>(), 0);
+        }
+
+        PendingMark failedAgain() {
+            return new PendingMark(mark, committed, failures + 1);
+        }
+    }
+
+    private static final String MARK_OTP_USED_SQL =
+            "UPDATE student_otp SET used = true WHERE student_id = ? AND otp = ? AND used = false";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private DashboardCache dashboardCache;
+    @Autowired private AttendanceLedgerService attendanceLedgerService;
+    @Autowired private AttendanceUpsertService attendanceUpsertService;
+    @Autowired private OtpMetrics otpMetrics;
+
+    @Value("${attendance.journal.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${attendance.journal.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${attendance.journal.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${attendance.journal.ack:async}")
+    private String ackMode;
+
+    @Value("${attendance.journal.sync-timeout-ms:5000}")
+    private long syncTimeoutMs;
+
+    @Value("${attendance.journal.file:}")
+    private String journalFile;
+
+    @Value("${attendance.journal.fsync:false}")
+    private boolean fsync;
+
+    @Value("${attendance.journal.retry-attempts:3}")
+    private int retryAttempts;
+
+    @Value("${attendance.journal.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    @Value("${attendance.journal.max-attempts:5}")
+    private int maxAttempts;
+
+    private BlockingQueue<PendingMark> queue;
+    // Marks whose commit failed, taken ahead of the queue by the next batch; flusher thread only
+    private final Deque<PendingMark> retries = new ArrayDeque<>();
+    private Timer commitTimer;
+    private Timer enqueueWaitTimer;
+    private Counter failedMarks;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // Journal file state; appends and truncation both hold journalLock. A ReentrantLock rather than
+    // synchronized: the append does file I/O and must not pin a virtual request thread to its carrier.
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private FileChannel journal;
+    // Journaled marks, and journaled marks since committed or given up
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong settled = new AtomicLong();
+
+    @PostConstruct
+    void start() throws IOException {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        commitTimer = otpMetrics.timer("attendance.writebehind.commit", "Group commit of queued attendance marks");
+        enqueueWaitTimer = otpMetrics.timer("attendance.writebehind.enqueue.wait", "Time a submit blocks on a full queue");
+        failedMarks = otpMetrics.counter("attendance.writebehind.failed", "Attendance marks given up after repeated commit failures");
+        otpMetrics.gauge("attendance.writebehind.queue", "Attendance marks waiting for the next group commit", queue::size);
+        if (!journalFile.isBlank()) {
+            Path path = Path.of(journalFile);
+            List<AttendanceMark> unreplayed = replay(path);
+            journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            // Journal them again before the old file is gone for good, and let the flusher retry them
+            for (AttendanceMark mark : unreplayed) {
+                append(mark);
+                queue.add(new PendingMark(mark));
+            }
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "attendance-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException, IOException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        if (journal != null) journal.close();
+    }
+
+    // ==============================
+    // APPEND
+    // ==============================
+    public void enqueue(AttendanceMark mark) {
+        if (journal != null) append(mark);
+
+        PendingMark pending = new PendingMark(mark);
+        try {
+            if (!queue.offer(pending)) {
+                long waitStart = System.nanoTime();
+                queue.put(pending); // blocks when the flusher falls behind
+                enqueueWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            // The caller is told it failed, so the journaled line must not hold up truncation
+            if (journal != null) settled.incrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attendance could not be queued");
+        }
+
+        if ("sync".equalsIgnoreCase(ackMode)) {
+            try {
+                pending.committed().get(syncTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Attendance could not be saved");
+            } catch (ExecutionException | TimeoutException e) {
+                throw new RuntimeException("Attendance could not be saved");
+            }
+        }
+    }
+
+    private void append(AttendanceMark mark) {
+        byte[] line = encode(mark).getBytes(StandardCharsets.UTF_8);
+        journalLock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) journal.write(buffer);
+            if (fsync) journal.force(false);
+            appended.incrementAndGet();
+        } catch (IOException e) {
+            throw new RuntimeException("Attendance journal write failed");
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // ==============================
+    // GROUP COMMIT
+    // ==============================
+    private void flushLoop() {
+        List<PendingMark> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty() || !retries.isEmpty()) {
+            try {
+                while (!retries.isEmpty() && batch.size() < maxBatch) batch.add(retries.poll());
+                if (batch.isEmpty()) {
+                    PendingMark first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                }
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < maxBatch) {
+                    long waitNanos = deadline - System.nanoTime();
+                    if (waitNanos <= 0) break;
+                    PendingMark next = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingMark> batch) throws InterruptedException {
+        List<AttendanceMark> marks = new ArrayList<>(batch.size());
+        for (PendingMark pending : batch) marks.add(pending.mark());
+
+        for (int attempt = 0; attempt <= retryAttempts; attempt++) {
+            if (attempt > 0) Thread.sleep(retryBackoffMs << (attempt - 1));
+            try {
+                commitTimer.record(() -> write(marks));
+                dashboardCache.invalidateAll();
+                batch.forEach(pending -> pending.committed().complete(null));
+                settle(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("Attendance journal commit of " + batch.size() + " marks failed (attempt "
+                        + (attempt + 1) + "): " + e.getMessage());
+            }
+        }
+
+        // Still failing: commit mark by mark so the good ones land and only the bad ones are retried
+        for (PendingMark pending : batch) {
+            try {
+                write(List.of(pending.mark()));
+                pending.committed().complete(null);
+                settle(1);
+            } catch (RuntimeException e) {
+                failed(pending.failedAgain(), e);
+            }
+        }
+        dashboardCache.invalidateAll();
+    }
+
+    private void failed(PendingMark pending, RuntimeException e) {
+        if (pending.failures() < maxAttempts) {
+            retries.add(pending);
+            return;
+        }
+        System.out.println("Attendance mark given up after " + pending.failures() + " failed commits: "
+                + encode(pending.mark()).trim() + " (" + e.getMessage() + ")");
+        failedMarks.increment();
+        pending.committed().completeExceptionally(e);
+        settle(1);
+    }
+
+    private void write(List<AttendanceMark> marks) {
+        // Last mark wins per student and day
+        Map<String, AttendanceMark> unique = new LinkedHashMap<>();
+        for (AttendanceMark mark : marks) unique.put(mark.studentId() + "|" + mark.date(), mark);
+
+        List<Object[]> otpRows = new ArrayList<>(unique.size());
+        List<AttendanceUpsertService.PresenceMark> presenceMarks = new ArrayList<>(unique.size());
+        for (AttendanceMark mark : unique.values()) {
+            if (mark.otp() != null) otpRows.add(new Object[]{mark.studentId(), mark.otp()});
+            presenceMarks.add(new AttendanceUpsertService.PresenceMark(
+                    mark.studentId(), mark.rollNumber(), mark.date(), true));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!otpRows.isEmpty()) jdbcTemplate.batchUpdate(MARK_OTP_USED_SQL, otpRows);
+            attendanceUpsertService.markPresences(presenceMarks);
+            writeLedger(new ArrayList<>(unique.values()));
+        });
+    }
+
+    private void writeLedger(List<AttendanceMark> marks) {
+        List<AttendanceLedgerService.LedgerMark> ledgerMarks = new ArrayList<>(marks.size());
+        for (AttendanceMark mark : marks) {
+            ledgerMarks.add(new AttendanceLedgerService.LedgerMark(
+                    mark.studentId(), mark.rollNumber(), mark.classroomCode(), mark.date(), true));
+        }
+        attendanceLedgerService.markDays(ledgerMarks);
+    }
+
+    // ==============================
+    // JOURNAL FILE
+    // ==============================
+    // Once everything appended so far is settled the file holds nothing worth replaying
+    private void settle(int marks) {
+        if (journal == null) return;
+        settled.addAndGet(marks);
+        journalLock.lock();
+        try {
+            if (appended.get() != settled.get()) return;
+            journal.truncate(0);
+            journal.position(0);
+        } catch (IOException e) {
+            System.out.println("Attendance journal truncate failed: " + e.getMessage());
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Returns the marks that could not be written, for the flusher to retry
+    private List<AttendanceMark> replay(Path path) throws IOException {
+        List<AttendanceMark> unreplayed = new ArrayList<>();
+        if (!Files.exists(path)) return unreplayed;
+
+        List<AttendanceMark> marks = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            AttendanceMark mark = decode(line);
+            if (mark != null) marks.add(mark); // a torn last line from a crash is skipped
+        }
+
+        for (int from = 0; from < marks.size(); from += maxBatch) {
+            List<AttendanceMark> chunk = marks.subList(from, Math.min(from + maxBatch, marks.size()));
+            try {
+                write(chunk);
+            } catch (RuntimeException e) {
+                for (AttendanceMark mark : chunk) {
+                    try {
+                        write(List.of(mark));
+                    } catch (RuntimeException rowFailure) {
+                        unreplayed.add(mark);
+                    }
+                }
+            }
+        }
+        if (!marks.isEmpty()) {
+            System.out.println("Replayed " + (marks.size() - unreplayed.size()) + " attendance marks from " + path
+                    + (unreplayed.isEmpty() ? "" : ", " + unreplayed.size() + " left for retry"));
+        }
+        return unreplayed;
+    }
+
+    private static String encode(AttendanceMark mark) {
+        return mark.studentId() + "\t" + clean(mark.rollNumber()) + "\t" + clean(mark.name()) + "\t"
+                + (mark.otp() == null ? "" : mark.otp()) + "\t" + mark.date() + "\t"
+                + clean(mark.classroomCode()) + "\n";
+    }
+
+    private static AttendanceMark decode(String line) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length != 6) return null;
+        try {
+            String classroomCode = parts[5].isEmpty() ? null : parts[5];
+            return new AttendanceMark(Long.parseLong(parts[0]), parts[1], parts[2], classroomCode,
+                    parts[3].isEmpty() ? null : parts[3], LocalDate.parse(parts[4]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ');
+    }
+}
@@ -0,0 +1,50 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.StudentDashboardDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived per-classroom copy of the teacher dashboard rows, so repeated refreshes of
+ * /api/teacher/all-students within dashboard.cache.ttl-ms share one query. Every attendance or
+ * roster write invalidates the affected classroom (or all of them when it is not known).
+ */
+@Service
+public class DashboardCache {
+
+    private record CachedRows(List<StudentDashboardDTO> rows, long expiresAtMillis) {}
+
+    @Value("${dashboard.cache.ttl-ms:2000}")
+    private long ttlMs;
+
+    private final Map<String, CachedRows> rowsByClassroom = new ConcurrentHashMap<>();
+
+    public List<StudentDashboardDTO> get(String classroomCode, Supplier<List<StudentDashboardDTO>> loader) {
+        if (ttlMs <= 0) return loader.get();
+
+        long now = System.currentTimeMillis();
+        CachedRows cached = rowsByClassroom.get(classroomCode);
+        if (cached != null && cached.expiresAtMillis() > now) return cached.rows();
+
+        List<StudentDashboardDTO> rows = List.copyOf(loader.get());
+        rowsByClassroom.put(classroomCode, new CachedRows(rows, now + ttlMs));
+        return rows;
+    }
+
+    public void invalidate(String classroomCode) {
+        if (classroomCode == null) {
+            invalidateAll();
+        } else {
+            rowsByClassroom.remove(classroomCode);
+        }
+    }
+
+    public void invalidateAll() {
+        rowsByClassroom.clear();
+    }
+}
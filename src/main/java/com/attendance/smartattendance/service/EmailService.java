@@ -1,24 +1,41 @@
 package com.attendance.smartattendance.service;
 
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.mail.MailSendException;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Service
 public class EmailService {
 
-    private final JavaMailSender javaMailSender;
+    private final MailDeliveryEngine mailDeliveryEngine;
+    private final MeterRegistry meterRegistry;
 
-    public EmailService(JavaMailSender javaMailSender) {
-        this.javaMailSender = javaMailSender;
+    public EmailService(MailDeliveryEngine mailDeliveryEngine, MeterRegistry meterRegistry) {
+        this.mailDeliveryEngine = mailDeliveryEngine;
+        this.meterRegistry = meterRegistry;
     }
 
+    // Blocks until the message is delivered (or has failed every retry), as the callers expect
     public void sendMail(String to, String subject, String text) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
-        javaMailSender.send(message);
+        // mail.send{result=sent|failed}: queueing + delivery as seen by the caller
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failed";
+        try {
+            sendMailAsync(to, subject, text).join();
+            result = "sent";
+        } catch (CompletionException e) {
+            throw new MailSendException("Mail to " + to + " could not be sent", e.getCause());
+        } finally {
+            sample.stop(meterRegistry.timer("mail.send", "result", result));
+        }
+    }
+
+    public CompletableFuture<Void> sendMailAsync(String to, String subject, String text) {
+        return mailDeliveryEngine.submit(to, subject, text);
     }
 
     public void sendOtp(String email, String otp) {
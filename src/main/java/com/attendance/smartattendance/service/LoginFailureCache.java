@@ -0,0 +1,102 @@
+package com.attendance.smartattendance.service;
+
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passwords recently rejected for a teacherId, so retrying the same wrong password is answered
+ * without a repository read or a BCrypt check. Attempts are kept as SHA-256 of a per-process random
+ * salt, the teacherId and the password, never the password itself, for auth.login-failure-cache.ttl-seconds.
+ *
+ * Bounded: at most max-teachers teacherIds and max-per-teacher attempts each; expired entries are
+ * swept every minute. A password reset drops the teacher's entries, since a rejected password may be
+ * the new one.
+ */
+@Service
+public class LoginFailureCache {
+
+    @Autowired private OtpMetrics otpMetrics;
+
+    @Value("${auth.login-failure-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${auth.login-failure-cache.max-teachers:10000}")
+    private int maxTeachers;
+
+    @Value("${auth.login-failure-cache.max-per-teacher:20}")
+    private int maxPerTeacher;
+
+    private final byte[] salt = new byte[16];
+    // teacherId -> attempt digest -> expiry (epoch millis)
+    private final Map<String, Map<String, Long>> failures = new ConcurrentHashMap<>();
+    private Counter hits;
+
+    @PostConstruct
+    void init() {
+        new SecureRandom().nextBytes(salt);
+        hits = otpMetrics.counter("auth.login.failure_cache.hits", "Logins rejected from the failed-attempt cache");
+        otpMetrics.gauge("auth.login.failure_cache.teachers", "TeacherIds with cached failed attempts", failures::size);
+    }
+
+    public boolean isKnownFailure(String teacherId, String password) {
+        if (teacherId == null) return false;
+        Map<String, Long> attempts = failures.get(teacherId);
+        if (attempts == null) return false;
+        String digest = digest(teacherId, password);
+        Long expiresAt = attempts.get(digest);
+        if (expiresAt == null) return false;
+        if (expiresAt < System.currentTimeMillis()) {
+            attempts.remove(digest, expiresAt);
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    public void recordFailure(String teacherId, String password) {
+        if (teacherId == null) return;
+        if (failures.size() >= maxTeachers && !failures.containsKey(teacherId)) {
+            evictExpired();
+            if (failures.size() >= maxTeachers) return; // full: the attempt is simply checked again next time
+        }
+        Map<String, Long> attempts = failures.computeIfAbsent(teacherId, id -> new ConcurrentHashMap<>());
+        if (attempts.size() >= maxPerTeacher) return;
+        attempts.put(digest(teacherId, password), System.currentTimeMillis() + ttlSeconds * 1000);
+    }
+
+    public void invalidate(String teacherId) {
+        if (teacherId != null) failures.remove(teacherId);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        failures.values().forEach(attempts -> attempts.values().removeIf(expiresAt -> expiresAt < now));
+        failures.values().removeIf(Map::isEmpty);
+    }
+
+    private String digest(String teacherId, String password) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(salt);
+            sha256.update(teacherId.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update((password == null ? "" : password).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
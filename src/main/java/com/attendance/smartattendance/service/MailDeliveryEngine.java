@@ -0,0 +1,300 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.MailDeliveryStatsDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queued mail delivery over a small pool of persistent SMTP connections.
+ *
+ * Each worker thread owns one Transport and sends message after message on it, reconnecting
+ * after mail.delivery.messages-per-connection messages, after it has been idle for
+ * mail.delivery.idle-close-ms, or when a send fails. Failed sends are retried with jittered
+ * exponential back-off, and a token bucket keeps the total rate within the provider's quota.
+ *
+ * Persistent connections need the JavaMailSenderImpl that Spring Boot builds from spring.mail.*;
+ * any other JavaMailSender (test doubles) is still queued, rate-limited and retried, but each
+ * message goes through its own send() call.
+ */
+@Service
+public class MailDeliveryEngine {
+
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    private final JavaMailSender javaMailSender;
+    private final MeterRegistry meterRegistry;
+    private final int connections;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final int messagesPerConnection;
+    private final long idleCloseMs;
+
+    private final BlockingQueue<OutgoingMail> queue;
+    private final TokenBucket rateLimit;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private Counter deliveredCounter;
+    private Counter failedCounter;
+    private Counter retryCounter;
+
+    // Delivered-per-second, sampled once a second
+    private long lastDelivered;
+    private volatile double throughputPerSecond;
+
+    private record OutgoingMail(String to, String subject, String text, CompletableFuture<Void> done) {}
+
+    public MailDeliveryEngine(JavaMailSender javaMailSender,
+                              MeterRegistry meterRegistry,
+                              @Value("${mail.delivery.connections:4}") int connections,
+                              @Value("${mail.delivery.queue-capacity:10000}") int queueCapacity,
+                              @Value("${mail.delivery.rate-per-second:20}") double ratePerSecond,
+                              @Value("${mail.delivery.max-attempts:4}") int maxAttempts,
+                              @Value("${mail.delivery.backoff-ms:250}") long backoffMs,
+                              @Value("${mail.delivery.messages-per-connection:100}") int messagesPerConnection,
+                              @Value("${mail.delivery.idle-close-ms:30000}") long idleCloseMs) {
+        this.javaMailSender = javaMailSender;
+        this.meterRegistry = meterRegistry;
+        this.connections = connections;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.messagesPerConnection = messagesPerConnection;
+        this.idleCloseMs = idleCloseMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.rateLimit = new TokenBucket(ratePerSecond);
+    }
+
+    @PostConstruct
+    void start() {
+        deliveredCounter = Counter.builder("mail.delivery").tag("result", "delivered").register(meterRegistry);
+        failedCounter = Counter.builder("mail.delivery").tag("result", "failed").register(meterRegistry);
+        retryCounter = Counter.builder("mail.delivery.retries").register(meterRegistry);
+        Gauge.builder("mail.delivery.queue", queue, BlockingQueue::size)
+                .description("Messages waiting for a connection").register(meterRegistry);
+        Gauge.builder("mail.delivery.connections", openConnections, AtomicInteger::get)
+                .description("Open SMTP connections").register(meterRegistry);
+
+        running = true;
+        for (int i = 0; i < connections; i++) {
+            Thread worker = new Thread(this::work, "mail-delivery-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    // Workers finish what is queued (without further retries) and close their connections
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // ==============================
+    // SUBMIT
+    // ==============================
+    public CompletableFuture<Void> submit(String to, String subject, String text) {
+        OutgoingMail mail = new OutgoingMail(to, subject, text, new CompletableFuture<>());
+        try {
+            queue.put(mail); // blocks when the queue is full
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            mail.done().completeExceptionally(e);
+        }
+        return mail.done();
+    }
+
+    public MailDeliveryStatsDTO stats() {
+        return new MailDeliveryStatsDTO(queue.size(), openConnections.get(), connectionsOpened.sum(),
+                delivered.sum(), failed.sum(), retries.sum(), throughputPerSecond);
+    }
+
+    @Scheduled(fixedRate = 1_000)
+    public void sampleThroughput() {
+        long now = delivered.sum();
+        throughputPerSecond = now - lastDelivered;
+        lastDelivered = now;
+    }
+
+    // ==============================
+    // WORKERS
+    // ==============================
+    private void work() {
+        SmtpConnection connection = new SmtpConnection();
+        try {
+            while (running || !queue.isEmpty()) {
+                OutgoingMail mail = queue.poll(Math.min(idleCloseMs, 1_000), TimeUnit.MILLISECONDS);
+                if (mail == null) {
+                    connection.closeIfIdle();
+                    continue;
+                }
+                deliver(connection, mail);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void deliver(SmtpConnection connection, OutgoingMail mail) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            rateLimit.acquire();
+            try {
+                connection.send(mail);
+                delivered.increment();
+                deliveredCounter.increment();
+                mail.done().complete(null);
+                return;
+            } catch (MessagingException | RuntimeException e) {
+                connection.close(); // the connection may be broken; the next attempt opens a fresh one
+
+                if (attempt >= maxAttempts || !running || isPermanent(e)) {
+                    failed.increment();
+                    failedCounter.increment();
+                    System.out.println("Mail to " + mail.to() + " failed after " + attempt + " attempt(s): " + e.getMessage());
+                    mail.done().completeExceptionally(e);
+                    return;
+                }
+                retries.increment();
+                retryCounter.increment();
+                Thread.sleep(backoff(attempt));
+            }
+        }
+    }
+
+    // Exponential back-off with equal jitter: half the delay fixed, half random
+    private long backoff(int attempt) {
+        long delay = Math.min(MAX_BACKOFF_MS, backoffMs << Math.min(attempt - 1, 20));
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    // A rejected recipient will not be accepted on retry
+    private static boolean isPermanent(Exception e) {
+        return e instanceof SendFailedException failure
+                && failure.getInvalidAddresses() != null
+                && failure.getInvalidAddresses().length > 0;
+    }
+
+    /** One worker's SMTP conversation, kept open across messages. */
+    private final class SmtpConnection {
+        private Transport transport;
+        private int sentOnConnection;
+        private long lastUsed;
+
+        void send(OutgoingMail mail) throws MessagingException {
+            if (!(javaMailSender instanceof JavaMailSenderImpl sender)) {
+                SimpleMailMessage message = new SimpleMailMessage();
+                message.setTo(mail.to());
+                message.setSubject(mail.subject());
+                message.setText(mail.text());
+                javaMailSender.send(message);
+                return;
+            }
+
+            if (transport != null && sentOnConnection >= messagesPerConnection) close();
+            if (transport == null) open(sender);
+
+            MimeMessage message = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, sender.getDefaultEncoding());
+            helper.setTo(mail.to());
+            helper.setSubject(mail.subject());
+            helper.setText(mail.text());
+            message.setSentDate(new Date());
+            message.saveChanges();
+
+            transport.sendMessage(message, message.getAllRecipients());
+            sentOnConnection++;
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private void open(JavaMailSenderImpl sender) throws MessagingException {
+            Session session = sender.getSession();
+            // Same fallback as JavaMailSenderImpl: explicit protocol, then mail.transport.protocol, then smtp
+            String protocol = sender.getProtocol();
+            if (protocol == null) protocol = session.getProperty("mail.transport.protocol");
+            if (protocol == null) protocol = JavaMailSenderImpl.DEFAULT_PROTOCOL;
+            Transport opened = session.getTransport(protocol);
+            opened.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+            transport = opened;
+            sentOnConnection = 0;
+            lastUsed = System.currentTimeMillis();
+            openConnections.incrementAndGet();
+            connectionsOpened.increment();
+        }
+
+        void closeIfIdle() {
+            if (transport != null && System.currentTimeMillis() - lastUsed >= idleCloseMs) close();
+        }
+
+        void close() {
+            if (transport == null) return;
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // the server may already have dropped the connection
+            }
+            transport = null;
+            openConnections.decrementAndGet();
+        }
+    }
+
+    /** Token bucket holding up to one second of quota; a rate of 0 or less means unlimited. */
+    static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(double ratePerSecond) {
+            this.ratePerNano = ratePerSecond / 1e9;
+            this.capacity = Math.max(1, ratePerSecond);
+            this.tokens = capacity;
+        }
+
+        void acquire() throws InterruptedException {
+            if (ratePerNano <= 0) return;
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+                refilledAt = now;
+                tokens -= 1; // may go negative: the caller waits for its token to be refilled
+                waitNanos = tokens >= 0 ? 0 : (long) (-tokens / ratePerNano);
+            }
+            if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.OutboxStatsDTO;
+import com.attendance.smartattendance.entity.NotificationOutbox;
+import com.attendance.smartattendance.entity.NotificationOutbox.Status;
+import com.attendance.smartattendance.repository.NotificationOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transactional outbox for account emails (verification links, password reset OTPs, delete
+ * confirmations). Handlers enqueue inside their own transaction, so the email exists exactly
+ * when the token it carries was committed; a scheduled dispatcher claims due rows in batches,
+ * sends them through the mail delivery engine and records the result.
+ *
+ * Delivery is at-least-once: a row claimed by a process that died before recording the result
+ * is claimed again once outbox.lease-ms has passed. A row enqueued with an expiry (a reset OTP,
+ * a delete link) is never sent after it and is removed by a sweep once it has passed.
+ */
+@Service
+public class NotificationOutboxService {
+
+    // A key that is already queued (or being queued by a concurrent transaction) keeps its row:
+    // the unique key turns the insert into a no-op instead of a constraint violation
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO notification_outbox (dedupe_key, recipient, subject, body, status, attempts, created_at, "
+                    + "next_attempt_at, expires_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE id = id";
+
+    @Autowired private NotificationOutboxRepository notificationOutboxRepository;
+    @Autowired private EmailService emailService;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Value("${outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry-base-ms:5000}")
+    private long retryBaseMs;
+
+    @Value("${outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${outbox.retention-days:7}")
+    private long retentionDays;
+
+    // Must join the caller's transaction: the row commits (or rolls back) with the caller's writes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String dedupeKey, String recipient, String subject, String body) {
+        enqueue(dedupeKey, recipient, subject, body, null);
+    }
+
+    // expiresAt: when the content stops being useful; null keeps the row until it is sent or fails
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String dedupeKey, String recipient, String subject, String body, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(ENQUEUE_SQL, dedupeKey, recipient, subject, body, Status.PENDING.name(), now, now, expiresAt);
+    }
+
+    public OutboxStatsDTO stats() {
+        return new OutboxStatsDTO(
+                notificationOutboxRepository.countByStatus(Status.PENDING),
+                notificationOutboxRepository.countByStatus(Status.SENDING),
+                notificationOutboxRepository.countByStatus(Status.SENT),
+                notificationOutboxRepository.countByStatus(Status.FAILED));
+    }
+
+    // ==============================
+    // DISPATCH
+    // ==============================
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        List<NotificationOutbox> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) send(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    private List<NotificationOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> due = notificationOutboxRepository.findDue(
+                    now, now.minusNanos(leaseMs * 1_000_000), PageRequest.of(0, batchSize));
+            for (NotificationOutbox row : due) {
+                row.setStatus(Status.SENDING);
+                row.setClaimedAt(now);
+                row.setAttempts(row.getAttempts() + 1);
+            }
+            return due;
+        });
+    }
+
+    private void send(List<NotificationOutbox> batch) {
+        List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+        for (NotificationOutbox row : batch) {
+            sends.add(emailService.sendMailAsync(row.getRecipient(), row.getSubject(), row.getBody()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            NotificationOutbox row = batch.get(i);
+            try {
+                sends.get(i).join();
+                row.setStatus(Status.SENT);
+                row.setSentAt(now);
+                row.setLastError(null);
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                String error = String.valueOf(cause.getMessage());
+                row.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+                if (row.getAttempts() >= maxAttempts) {
+                    row.setStatus(Status.FAILED);
+                } else {
+                    row.setStatus(Status.PENDING);
+                    row.setNextAttemptAt(now.plusNanos(backoffMs(row.getAttempts()) * 1_000_000));
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> notificationOutboxRepository.saveAll(batch));
+    }
+
+    private long backoffMs(int attempts) {
+        return retryBaseMs << Math.min(attempts - 1, 10);
+    }
+
+    // An OTP that is no longer valid is not worth sending (or keeping); claims still within their
+    // lease are left to the dispatcher that holds them
+    @Scheduled(fixedDelayString = "${outbox.expiry-sweep-ms:60000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer removed = transactionTemplate.execute(status ->
+                notificationOutboxRepository.deleteExpiredBefore(now, now.minusNanos(leaseMs * 1_000_000)));
+        if (removed != null && removed > 0) System.out.println("Notification outbox: removed " + removed + " expired rows");
+    }
+
+    // Sent rows are only kept for a while, for the status API and troubleshooting
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSent() {
+        Integer removed = transactionTemplate.execute(status ->
+                notificationOutboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        System.out.println("Notification outbox: removed " + removed + " sent rows");
+    }
+}
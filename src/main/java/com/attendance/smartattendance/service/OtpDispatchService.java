@@ -0,0 +1,245 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.ClassroomDispatchMetricsDTO;
+import com.attendance.smartattendance.dto.OtpDispatchStatusDTO;
+import com.attendance.smartattendance.entity.Student;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the OTP fan-out off the request thread: OTPs are generated and written in JDBC batches,
+ * then emails go out on virtual threads, with a shared semaphore capping how many SMTP calls
+ * are in flight at once (the generator blocks on it, which is the back-pressure).
+ */
+@Service
+public class OtpDispatchService {
+
+    private static final String INSERT_OTP_SQL =
+            "INSERT INTO student_otp (otp, roll_number, expiry_time, used, student_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String MARK_GENERATED_SQL =
+            "UPDATE students SET otp_generated_at = ? WHERE id = ?";
+    // One student_otp insert plus one students update
+    private static final int ROWS_PER_STUDENT = 2;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private EmailService emailService;
+    @Autowired private ActiveOtpCache activeOtpCache;
+    @Autowired private OtpMetrics otpMetrics;
+
+    @Value("${otp.dispatch.batch-size:500}")
+    private int batchSize;
+
+    @Value("${otp.dispatch.mail-concurrency:16}")
+    private int mailConcurrency;
+
+    @Value("${otp.dispatch.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    private final Map<String, DispatchJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ClassroomStats> classroomStats = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore mailPermits;
+    // OTP emails generated but not yet handed to the mail server
+    private final AtomicInteger pendingMails = new AtomicInteger();
+    private Timer persistTimer;
+    private Timer permitWaitTimer;
+
+    @PostConstruct
+    void init() {
+        mailPermits = new Semaphore(mailConcurrency);
+        persistTimer = otpMetrics.timer("otp.dispatch.persist", "student_otp + students batch write for one chunk");
+        permitWaitTimer = otpMetrics.timer("otp.dispatch.mail.permit.wait", "Time the generator waits for a mail slot");
+        otpMetrics.gauge("otp.mail.pending", "OTP emails waiting to be sent", pendingMails::get);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    // ==============================
+    // START / QUERY JOBS
+    // ==============================
+    public OtpDispatchStatusDTO start(List<Student> students, LocalDateTime issuedAt, String classroomCode) {
+        ClassroomStats stats = classroomStats.computeIfAbsent(classroomCode, code -> new ClassroomStats());
+        stats.dispatches.increment();
+        stats.students.add(students.size());
+
+        DispatchJob job = new DispatchJob(UUID.randomUUID().toString(), classroomCode, students.size(), stats);
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job, students, issuedAt));
+        return job.toStatus();
+    }
+
+    public Optional<OtpDispatchStatusDTO> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(DispatchJob::toStatus);
+    }
+
+    // Totals across every dispatch this instance ran for the classroom
+    public ClassroomDispatchMetricsDTO metrics(String classroomCode) {
+        ClassroomStats stats = classroomStats.getOrDefault(classroomCode, new ClassroomStats());
+        return new ClassroomDispatchMetricsDTO(classroomCode, stats.dispatches.sum(), stats.students.sum(),
+                stats.rowsWritten.sum(), stats.emailsSent.sum(), stats.emailsFailed.sum());
+    }
+
+    // Drop finished jobs so the progress map does not grow forever
+    @Scheduled(fixedDelay = 60_000)
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    // ==============================
+    // PIPELINE
+    // ==============================
+    private void run(DispatchJob job, List<Student> students, LocalDateTime issuedAt) {
+        List<CompletableFuture<Void>> mails = new ArrayList<>(students.size());
+        int counted = 0;
+        try {
+            for (int from = 0; from < students.size(); from += batchSize) {
+                List<Student> chunk = students.subList(from, Math.min(from + batchSize, students.size()));
+
+                List<String> otps = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    otps.add(OtpService.generate6DigitOtp());
+                    job.generated.incrementAndGet();
+                }
+
+                persist(chunk, otps, issuedAt);
+                job.persisted.addAndGet(chunk.size());
+                job.stats.rowsWritten.add(ROWS_PER_STUDENT * chunk.size());
+                pendingMails.addAndGet(chunk.size());
+                counted += chunk.size();
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    long waitStart = System.nanoTime();
+                    mailPermits.acquire();
+                    permitWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+                    String email = chunk.get(i).getEmail();
+                    String otp = otps.get(i);
+                    mails.add(CompletableFuture.runAsync(() -> sendOne(job, email, otp), executor));
+                }
+            }
+            CompletableFuture.allOf(mails.toArray(CompletableFuture[]::new)).join();
+            job.finish("COMPLETED");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish("FAILED");
+        } catch (RuntimeException e) {
+            System.out.println("OTP dispatch " + job.id + " failed: " + e.getMessage());
+            job.lastError = e.getMessage();
+            job.finish("FAILED");
+        } finally {
+            // Queued mails take themselves off the gauge in sendOne; the rest never will
+            pendingMails.addAndGet(mails.size() - counted);
+        }
+    }
+
+    private void persist(List<Student> chunk, List<String> otps, LocalDateTime issuedAt) {
+        LocalDateTime expiry = issuedAt.plusSeconds(OtpService.OTP_VALID_SECONDS);
+
+        List<Object[]> otpRows = new ArrayList<>(chunk.size());
+        List<Object[]> studentRows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Student student = chunk.get(i);
+            otpRows.add(new Object[]{otps.get(i), student.getRollNumber(), expiry, false, student.getId()});
+            studentRows.add(new Object[]{issuedAt, student.getId()});
+        }
+
+        persistTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_OTP_SQL, otpRows);
+            jdbcTemplate.batchUpdate(MARK_GENERATED_SQL, studentRows);
+        }));
+
+        // Only cache once the rows are committed, so a cache hit always has a row to mark used
+        long expiresAtMillis = expiry.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (int i = 0; i < chunk.size(); i++) {
+            Student student = chunk.get(i);
+            activeOtpCache.put(student.getRollNumber(), new ActiveOtpCache.Entry(
+                    student.getId(), Integer.parseInt(otps.get(i)), expiresAtMillis,
+                    student.getName(), student.getClassroomCode()));
+            otpMetrics.issued(student.getClassroomCode(), 1);
+        }
+    }
+
+    private void sendOne(DispatchJob job, String email, String otp) {
+        try {
+            emailService.sendOtp(email, otp);
+            job.sent.incrementAndGet();
+            job.stats.emailsSent.increment();
+        } catch (RuntimeException e) {
+            job.failed.incrementAndGet();
+            job.stats.emailsFailed.increment();
+            // Failures in one job usually share a cause (SMTP down, bad credentials); keep the latest
+            job.lastError = email + ": " + e.getMessage();
+            System.out.println("OTP mail to " + email + " failed: " + e.getMessage());
+        } finally {
+            pendingMails.decrementAndGet();
+            mailPermits.release();
+        }
+    }
+
+    private static final class ClassroomStats {
+        private final LongAdder dispatches = new LongAdder();
+        private final LongAdder students = new LongAdder();
+        private final LongAdder rowsWritten = new LongAdder();
+        private final LongAdder emailsSent = new LongAdder();
+        private final LongAdder emailsFailed = new LongAdder();
+    }
+
+    private static final class DispatchJob {
+        private final String id;
+        private final String classroomCode;
+        private final int total;
+        private final ClassroomStats stats;
+        private final AtomicInteger generated = new AtomicInteger();
+        private final AtomicInteger persisted = new AtomicInteger();
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile String state = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile String lastError;
+
+        private DispatchJob(String id, String classroomCode, int total, ClassroomStats stats) {
+            this.id = id;
+            this.classroomCode = classroomCode;
+            this.total = total;
+            this.stats = stats;
+        }
+
+        private void finish(String finalState) {
+            state = finalState;
+            finishedAt = LocalDateTime.now();
+        }
+
+        private OtpDispatchStatusDTO toStatus() {
+            return new OtpDispatchStatusDTO(id, classroomCode, state, total, generated.get(), persisted.get(),
+                    ROWS_PER_STUDENT * persisted.get(), sent.get(), failed.get(), lastError, startedAt, finishedAt);
+        }
+    }
+}
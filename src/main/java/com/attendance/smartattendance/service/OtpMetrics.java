@@ -0,0 +1,87 @@
+package com.attendance.smartattendance.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the OTP lifecycle, scraped from /actuator/prometheus.
+ *
+ * Per-classroom counters are looked up once and kept, so recording on the submit path is a map
+ * read plus an add. Repository calls are timed by Spring Boot's repository metrics
+ * (spring.data.repository.invocations); the JDBC batch steps use the timers below.
+ */
+@Component
+public class OtpMetrics {
+
+    public enum Outcome { VERIFIED, EXPIRED, INVALID, REUSED }
+
+    private static final String NO_CLASSROOM = "none";
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> issued = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> submissions = new ConcurrentHashMap<>();
+    private final Timer issueToVerify;
+
+    public OtpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.issueToVerify = Timer.builder("otp.issue.to.verify")
+                .description("Time from OTP issue to successful submit")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofSeconds(OtpService.OTP_VALID_SECONDS))
+                .register(registry);
+    }
+
+    public void issued(String classroomCode, int count) {
+        issued.computeIfAbsent(tag(classroomCode), code -> Counter.builder("otp.issued")
+                .description("OTPs generated and persisted")
+                .tag("classroom", code)
+                .register(registry)).increment(count);
+    }
+
+    public void submitted(String classroomCode, Outcome outcome) {
+        submissions.computeIfAbsent(tag(classroomCode), this::submissionCounters)[outcome.ordinal()].increment();
+    }
+
+    public void verified(String classroomCode, long issuedAtMillis) {
+        submitted(classroomCode, Outcome.VERIFIED);
+        issueToVerify.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - issuedAtMillis)));
+    }
+
+    public Timer timer(String name, String description) {
+        return Timer.builder(name).description(description).register(registry);
+    }
+
+    public Counter counter(String name, String description, String... tags) {
+        return Counter.builder(name).description(description).tags(tags).register(registry);
+    }
+
+    public void gauge(String name, String description, Supplier<Number> value) {
+        Gauge.builder(name, value).description(description).register(registry);
+    }
+
+    private Counter[] submissionCounters(String classroomCode) {
+        Outcome[] outcomes = Outcome.values();
+        Counter[] counters = new Counter[outcomes.length];
+        for (Outcome outcome : outcomes) {
+            counters[outcome.ordinal()] = Counter.builder("otp.submissions")
+                    .description("OTP submits by result")
+                    .tag("classroom", classroomCode)
+                    .tag("result", outcome.name().toLowerCase())
+                    .register(registry);
+        }
+        return counters;
+    }
+
+    private static String tag(String classroomCode) {
+        return classroomCode == null ? NO_CLASSROOM : classroomCode;
+    }
+}
@@ -0,0 +1,201 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory rate limits for the OTP endpoints, checked in the controller before any repository
+ * call or mail send. Each endpoint is limited per client IP and per subject (roll number or
+ * teacher email) with a sliding-window counter: the previous fixed window's count, weighted by how
+ * much of it still overlaps the last rate-limit.window-seconds, plus the current window's count.
+ *
+ * At most rate-limit.max-keys windows are tracked; expired ones (idle for two windows, so no longer
+ * counted) are swept every 30 s, and at most once a second when a new key finds the map full. If it
+ * is still full (a flood of distinct IPs or roll numbers), an untracked caller is counted in one of
+ * OVERFLOW_BUCKETS overflow windows per endpoint and key type, picked by hashing the key, instead of
+ * growing the map: a busy key then only throttles the few keys that share its bucket.
+ *
+ * Students of one classroom usually share a campus IP, so the per-IP limits are far above the
+ * per-student ones. Behind a reverse proxy, set server.forward-headers-strategy so the client IP is
+ * the real one.
+ */
+@Service
+public class OtpRateLimiter {
+
+    public enum Endpoint {
+        REQUEST_OTP("request-otp", "rollNumber"),
+        SUBMIT_OTP("submit-otp", "rollNumber"),
+        TEACHER_VERIFY_OTP("teacher-verify-otp", "email");
+
+        private final String tag;
+        private final String subjectTag;
+
+        Endpoint(String tag, String subjectTag) {
+            this.tag = tag;
+            this.subjectTag = subjectTag;
+        }
+    }
+
+    private static final String OVERFLOW = "*";
+    static final int OVERFLOW_BUCKETS = 64;
+    private static final long FULL_SWEEP_INTERVAL_MS = 1_000;
+
+    @Autowired private OtpMetrics otpMetrics;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.window-seconds:60}")
+    private long windowSeconds;
+
+    @Value("${rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${rate-limit.request-otp.per-ip:60}")
+    private int requestOtpPerIp;
+
+    @Value("${rate-limit.request-otp.per-student:3}")
+    private int requestOtpPerStudent;
+
+    @Value("${rate-limit.submit-otp.per-ip:1000}")
+    private int submitOtpPerIp;
+
+    @Value("${rate-limit.submit-otp.per-student:10}")
+    private int submitOtpPerStudent;
+
+    @Value("${rate-limit.teacher-verify-otp.per-ip:30}")
+    private int teacherVerifyPerIp;
+
+    @Value("${rate-limit.teacher-verify-otp.per-email:5}")
+    private int teacherVerifyPerEmail;
+
+    private long windowMillis;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private volatile long lastFullSweep;
+    // [endpoint][0 = ip, 1 = subject]
+    private final Counter[][] rejected = new Counter[Endpoint.values().length][2];
+
+    @PostConstruct
+    void init() {
+        windowMillis = windowSeconds * 1000;
+        for (Endpoint endpoint : Endpoint.values()) {
+            rejected[endpoint.ordinal()][0] = otpMetrics.counter("otp.rate_limit.rejected",
+                    "Requests answered 429 by the OTP rate limiter", "endpoint", endpoint.tag, "key", "ip");
+            rejected[endpoint.ordinal()][1] = otpMetrics.counter("otp.rate_limit.rejected",
+                    "Requests answered 429 by the OTP rate limiter", "endpoint", endpoint.tag, "key", endpoint.subjectTag);
+        }
+        otpMetrics.gauge("otp.rate_limit.keys", "Rate limit windows currently tracked", windows::size);
+    }
+
+    /** One sliding-window counter; only a few arithmetic operations run under its lock. */
+    static final class Window {
+        private long windowStart;
+        private int previous;
+        private int current;
+        private volatile long lastSeen;
+
+        // 0 when the call is admitted (and counted), else milliseconds until the current window ends
+        synchronized long tryAcquire(long now, long windowMillis, int limit) {
+            lastSeen = now;
+            long aligned = now - now % windowMillis;
+            if (aligned != windowStart) {
+                previous = aligned - windowStart == windowMillis ? current : 0;
+                current = 0;
+                windowStart = aligned;
+            }
+            double overlap = 1.0 - (double) (now - aligned) / windowMillis;
+            if (previous * overlap + current + 1 > limit) {
+                return Math.max(1, aligned + windowMillis - now);
+            }
+            current++;
+            return 0;
+        }
+    }
+
+    /**
+     * Counts one call against the IP and subject limits of the endpoint.
+     * Throws TooManyRequestsException (429) when either is exhausted.
+     */
+    public void check(Endpoint endpoint, String clientIp, String subject) {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+
+        if (clientIp != null) {
+            long wait = acquire(endpoint, "ip", clientIp, limitPerIp(endpoint), now);
+            if (wait > 0) reject(endpoint, 0, wait);
+        }
+        if (subject != null && !subject.isBlank()) {
+            String key = subject.trim().toLowerCase(Locale.ROOT);
+            long wait = acquire(endpoint, endpoint.subjectTag, key, limitPerSubject(endpoint), now);
+            if (wait > 0) reject(endpoint, 1, wait);
+        }
+    }
+
+    @Scheduled(fixedDelay = 30_000)
+    public void evictIdle() {
+        evictExpired(System.currentTimeMillis());
+    }
+
+    // A window not seen for two windows has no count left in the sliding sum
+    private void evictExpired(long now) {
+        long idleBefore = now - 2 * windowMillis;
+        windows.values().removeIf(window -> window.lastSeen < idleBefore);
+    }
+
+    public int trackedKeys() {
+        return windows.size();
+    }
+
+    private long acquire(Endpoint endpoint, String keyType, String value, int limit, long now) {
+        String key = endpoint.tag + '|' + keyType + '|' + value;
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxKeys) {
+                // A full scan per new key would make the flood itself expensive
+                if (now - lastFullSweep >= FULL_SWEEP_INTERVAL_MS) {
+                    lastFullSweep = now;
+                    evictExpired(now);
+                }
+                if (windows.size() >= maxKeys) {
+                    key = endpoint.tag + '|' + keyType + '|' + OVERFLOW + overflowBucket(value);
+                }
+            }
+            window = windows.computeIfAbsent(key, k -> new Window());
+        }
+        return window.tryAcquire(now, windowMillis, limit);
+    }
+
+    static int overflowBucket(String value) {
+        return Math.floorMod(value.hashCode(), OVERFLOW_BUCKETS);
+    }
+
+    private void reject(Endpoint endpoint, int keyType, long waitMillis) {
+        rejected[endpoint.ordinal()][keyType].increment();
+        throw new TooManyRequestsException("Too many requests, try again later", (waitMillis + 999) / 1000);
+    }
+
+    private int limitPerIp(Endpoint endpoint) {
+        return switch (endpoint) {
+            case REQUEST_OTP -> requestOtpPerIp;
+            case SUBMIT_OTP -> submitOtpPerIp;
+            case TEACHER_VERIFY_OTP -> teacherVerifyPerIp;
+        };
+    }
+
+    private int limitPerSubject(Endpoint endpoint) {
+        return switch (endpoint) {
+            case REQUEST_OTP -> requestOtpPerStudent;
+            case SUBMIT_OTP -> submitOtpPerStudent;
+            case TEACHER_VERIFY_OTP -> teacherVerifyPerEmail;
+        };
+    }
+}
@@ -1,19 +1,26 @@
 package com.attendance.smartattendance.service;
 
+import com.attendance.smartattendance.dto.ClassroomDispatchMetricsDTO;
+import com.attendance.smartattendance.dto.OtpDispatchStatusDTO;
 import com.attendance.smartattendance.entity.Attendance;
 import com.attendance.smartattendance.entity.Student;
 import com.attendance.smartattendance.entity.StudentOtp;
 import com.attendance.smartattendance.repository.AttendanceRepository;
 import com.attendance.smartattendance.repository.StudentOtpRepository;
 import com.attendance.smartattendance.repository.StudentRepository;
+import com.attendance.smartattendance.repository.TeacherRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import java.security.SecureRandom;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Random;
+import java.util.Optional;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -21,54 +28,91 @@ import java.util.TimerTask;
 public class OtpService {
 
     @Autowired private StudentRepository studentRepository;
+    @Autowired private TeacherRepository teacherRepository;
     @Autowired private StudentOtpRepository studentOtpRepository;
     @Autowired private AttendanceRepository attendanceRepository;
     @Autowired private EmailService emailService;
     @Autowired private AttendanceService attendanceService;
+    @Autowired private OtpDispatchService otpDispatchService;
+    @Autowired private ActiveOtpCache activeOtpCache;
+    @Autowired private AttendanceWriteBehindService attendanceWriteBehindService;
+    @Autowired private DashboardCache dashboardCache;
+    @Autowired private OtpStatusStreamService otpStatusStreamService;
+    @Autowired private AttendanceTallyStreamService attendanceTallyStreamService;
+    @Autowired private OtpMetrics otpMetrics;
+    @Autowired private OtpSessionRegistry otpSessionRegistry;
+    @Autowired private AttendanceUpsertService attendanceUpsertService;
 
     // OTP expiration
     public static final long OTP_VALID_SECONDS = 120; // 2 minutes
+    private static final long OTP_VALID_MILLIS = OTP_VALID_SECONDS * 1000;
 
-    // Separate fields for global normal OTP
-    private String normalOtp;
-    private LocalDateTime normalOtpTime;
+    private static final SecureRandom RANDOM = new SecureRandom();
 
-    // Separate fields for student-requested OTP
-    private String requestOtp;
-    private LocalDateTime requestOtpTime;
+    // Classroom window key used when an OTP went out to every student
+    private static final String ALL_CLASSROOMS = OtpStatusStreamService.ALL_CLASSROOMS;
+
+    // "classroom" sends only to the calling teacher's students, "all" keeps the old send-to-everyone behaviour
+    @Value("${otp.dispatch.scope:classroom}")
+    private String dispatchScope;
+
+    @PostConstruct
+    void registerGauges() {
+        otpMetrics.gauge("otp.windows.active", "Classrooms with an open OTP window",
+                otpSessionRegistry::activeClassrooms);
+    }
 
 
     // ==============================
-    // NORMAL OTP (SEND TO ALL)
+    // NORMAL OTP (SEND TO CLASSROOM / ALL)
     // ==============================
-    public void sendOtpToAllStudents() {
-        List<Student> students = studentRepository.findAll();
+    // Entry point for the Send OTP button; honours otp.dispatch.scope
+    public OtpDispatchStatusDTO sendOtpForTeacher(String teacherId) {
+        if ("all".equalsIgnoreCase(dispatchScope)) {
+            return sendOtpToAllStudents();
+        }
+
+        String classroomCode = teacherRepository.findByTeacherId(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"))
+                .getClassroomCode();
+        return sendOtpToClassroom(classroomCode);
+    }
+
+    // Generation, persistence and emails run in the background; poll the returned job id for progress
+    public OtpDispatchStatusDTO sendOtpToClassroom(String classroomCode) {
+        List<Student> students = studentRepository.findByClassroomCode(classroomCode);
         LocalDateTime now = LocalDateTime.now();
-        normalOtpTime = now; // so getNormalOtpRemainingSeconds() works and student page shows timer
+        otpSessionRegistry.openClassroom(classroomCode, OTP_VALID_MILLIS); // opens this classroom's window only
+        otpStatusStreamService.opened(classroomCode);
 
-        for (Student student : students) {
-            String otp = generate6DigitOtp();
+        return otpDispatchService.start(students, now, classroomCode);
+    }
 
-            StudentOtp studentOtp = new StudentOtp();
-            studentOtp.setStudent(student);
-            studentOtp.setOtp(otp);
-            studentOtp.setExpiryTime(now.plusSeconds(OTP_VALID_SECONDS));
-            studentOtp.setUsed(false);
-            System.out.println("OTP:"+otp);
-            studentOtpRepository.save(studentOtp);
+    public OtpDispatchStatusDTO sendOtpToAllStudents() {
+        List<Student> students = studentRepository.findAll();
+        LocalDateTime now = LocalDateTime.now();
+        otpSessionRegistry.openClassroom(ALL_CLASSROOMS, OTP_VALID_MILLIS); // so getNormalOtpRemainingSeconds() works and student page shows timer
+        otpStatusStreamService.opened(ALL_CLASSROOMS);
 
-            student.setOtpGeneratedAt(now); // so teacher can manually update attendance after 5 min
-            studentRepository.save(student);
+        return otpDispatchService.start(students, now, ALL_CLASSROOMS);
+    }
 
-            emailService.sendOtp(student.getEmail(), otp);
-        }
+    public Optional<OtpDispatchStatusDTO> getDispatchStatus(String jobId) {
+        return otpDispatchService.status(jobId);
     }
 
-    public boolean validateNormalOtp(String otp) {
-        if (normalOtp == null) return false;
+    // Only jobs sent to the teacher's own classroom (or to every student) are visible to them
+    public Optional<OtpDispatchStatusDTO> getDispatchStatus(String jobId, String teacherId) {
+        String classroomCode = teacherRepository.findByTeacherId(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"))
+                .getClassroomCode();
+        return otpDispatchService.status(jobId)
+                .filter(job -> ALL_CLASSROOMS.equals(job.getClassroomCode())
+                        || job.getClassroomCode().equals(classroomCode));
+    }
 
-        long seconds = Duration.between(normalOtpTime, LocalDateTime.now()).getSeconds();
-        return normalOtp.equals(otp) && seconds <= OTP_VALID_SECONDS;
+    public ClassroomDispatchMetricsDTO getDispatchMetrics(String classroomCode) {
+        return otpDispatchService.metrics(classroomCode);
     }
 
 
@@ -79,21 +123,11 @@ public class OtpService {
         Student student = studentRepository.findByRollNumber(rollNumber)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
-        requestOtp = generate6DigitOtp();
-        requestOtpTime = LocalDateTime.now();
-
-        LocalDate today = LocalDate.now();
-        Attendance attendance = attendanceRepository.findByStudentAndDate(student, today)
-                .orElse(new Attendance());
-
-        attendance.setOtp(requestOtp);
-        attendance.setOtpUsed(false);
-        attendance.setOtpExpiry(requestOtpTime.plusSeconds(OTP_VALID_SECONDS));
-        attendance.setStudent(student);
-        attendance.setDate(today);
-        attendance.setRollNumber(student.getRollNumber());
+        String requestOtp = generate6DigitOtp();
+        OtpSessionRegistry.Session session = otpSessionRegistry.issueStudentOtp(rollNumber, requestOtp, OTP_VALID_MILLIS);
 
-        attendanceRepository.save(attendance);
+        attendanceUpsertService.issueOtp(student.getId(), student.getRollNumber(), LocalDate.now(), requestOtp,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(session.getExpiresAtMillis()), ZoneId.systemDefault()));
 
         emailService.sendMail(
                 student.getEmail(),
@@ -102,11 +136,9 @@ public class OtpService {
         );
     }
 
-    public boolean validateRequestOtp(String otp) {
-        if (requestOtp == null) return false;
-
-        long seconds = Duration.between(requestOtpTime, LocalDateTime.now()).getSeconds();
-        return requestOtp.equals(otp) && seconds <= OTP_VALID_SECONDS;
+    // Only the OTP issued to this student, and only once
+    public boolean validateRequestOtp(String rollNumber, String otp) {
+        return otpSessionRegistry.verifyStudentOtp(rollNumber, otp) == OtpSessionRegistry.Verification.VERIFIED;
     }
 
 
@@ -114,31 +146,71 @@ public class OtpService {
     // VERIFY OTP FROM STUDENT
     // ==============================
     public String verifyOtp(String rollNo, String otp) {
+        // Fast path: OTPs from the last dispatch are checked in memory and written behind
+        ActiveOtpCache.Verification cached = activeOtpCache.verify(rollNo, otp);
+        switch (cached.result()) {
+            case VERIFIED -> {
+                ActiveOtpCache.Entry entry = cached.entry();
+                otpMetrics.verified(entry.getClassroomCode(), entry.getExpiresAtMillis() - OTP_VALID_SECONDS * 1000);
+                attendanceWriteBehindService.enqueue(new AttendanceWriteBehindService.AttendanceMark(
+                        entry.getStudentId(), rollNo, entry.getName(), entry.getClassroomCode(), otp, LocalDate.now()));
+                attendanceTallyStreamService.publish(entry.getClassroomCode(), rollNo, "P");
+                return "Attendance marked successfully";
+            }
+            case EXPIRED -> {
+                otpMetrics.submitted(cached.entry().getClassroomCode(), OtpMetrics.Outcome.EXPIRED);
+                return "OTP expired";
+            }
+            case INVALID -> {
+                otpMetrics.submitted(cached.entry().getClassroomCode(), OtpMetrics.Outcome.INVALID);
+                return "Invalid OTP";
+            }
+            case USED -> {
+                otpMetrics.submitted(cached.entry().getClassroomCode(), OtpMetrics.Outcome.REUSED);
+                return "OTP already used";
+            }
+            // Not cached because the cache was full when it was issued: check the database below.
+            // (After a restart no classroom window is open, so the window check rejects first.)
+            case MISS -> { }
+        }
+
         Student student = studentRepository.findByRollNumber(rollNo)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
+        if (getNormalOtpRemainingSeconds(student.getClassroomCode()) <= 0) {
+            throw new RuntimeException("OTP not generated or expired");
+        }
+
         StudentOtp studentOtp = studentOtpRepository
                 .findTopByStudentAndUsedFalseOrderByExpiryTimeDesc(student)
                 .orElseThrow(() -> new RuntimeException("OTP not found"));
 
-        if (studentOtp.isUsed()) return "OTP already used";
+        String classroomCode = student.getClassroomCode();
+        if (studentOtp.isUsed()) {
+            otpMetrics.submitted(classroomCode, OtpMetrics.Outcome.REUSED);
+            return "OTP already used";
+        }
 
-        if (LocalDateTime.now().isAfter(studentOtp.getExpiryTime())) return "OTP expired";
+        if (LocalDateTime.now().isAfter(studentOtp.getExpiryTime())) {
+            otpMetrics.submitted(classroomCode, OtpMetrics.Outcome.EXPIRED);
+            return "OTP expired";
+        }
 
-        if (!studentOtp.getOtp().equals(otp)) return "Invalid OTP";
+        if (!studentOtp.getOtp().equals(otp)) {
+            otpMetrics.submitted(classroomCode, OtpMetrics.Outcome.INVALID);
+            return "Invalid OTP";
+        }
 
         studentOtp.setUsed(true);
         studentOtpRepository.save(studentOtp);
+        otpMetrics.verified(classroomCode, studentOtp.getExpiryTime().minusSeconds(OTP_VALID_SECONDS)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
 
         // Create/update Attendance so teacher dashboard shows present today
         LocalDate today = LocalDate.now();
-        Attendance attendance = attendanceRepository.findByStudentAndDate(student, today)
-                .orElse(new Attendance());
-        attendance.setStudent(student);
-        attendance.setDate(today);
-        attendance.setPresent(true);
-        attendance.setRollNumber(student.getRollNumber());
-        attendanceRepository.save(attendance);
+        attendanceUpsertService.markPresence(student.getId(), student.getRollNumber(), today, true);
+        dashboardCache.invalidate(student.getClassroomCode());
+        attendanceTallyStreamService.publish(student.getClassroomCode(), student.getRollNumber(), "P");
 
         attendanceService.updateWeeklyAttendance(student, today, true);
 
@@ -149,18 +221,29 @@ public class OtpService {
     // ==============================
     // HELPER METHODS
     // ==============================
-    private String generate6DigitOtp() {
-        return String.valueOf(100000 + new Random().nextInt(900000));
+    public static String generate6DigitOtp() {
+        return String.valueOf(100000 + RANDOM.nextInt(900000));
     }
 
+    // Longest remaining window across all classrooms (student page opened without a classroom code)
     public long getNormalOtpRemainingSeconds() {
-        if (normalOtpTime == null) return 0;
-        return OTP_VALID_SECONDS - Duration.between(normalOtpTime, LocalDateTime.now()).getSeconds();
+        return toSeconds(otpSessionRegistry.maxRemainingMillis());
+    }
+
+    // Remaining window for one classroom; an OTP sent to everyone counts for every classroom
+    public long getNormalOtpRemainingSeconds(String classroomCode) {
+        long global = otpSessionRegistry.classroomRemainingMillis(ALL_CLASSROOMS);
+        if (classroomCode == null) return toSeconds(global);
+        return toSeconds(Math.max(global, otpSessionRegistry.classroomRemainingMillis(classroomCode)));
+    }
+
+    public long getRequestOtpRemainingSeconds(String rollNumber) {
+        return toSeconds(otpSessionRegistry.studentRemainingMillis(rollNumber));
     }
 
-    public long getRequestOtpRemainingSeconds() {
-        if (requestOtpTime == null) return 0;
-        return OTP_VALID_SECONDS - Duration.between(requestOtpTime, LocalDateTime.now()).getSeconds();
+    // Rounded up, so a window is "open" (> 0) until its last millisecond
+    private static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
     }
 
 
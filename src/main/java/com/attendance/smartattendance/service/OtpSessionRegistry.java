@@ -0,0 +1,129 @@
+package com.attendance.smartattendance.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * OTP state that used to live in plain OtpService fields: one window per classroom (the Send OTP
+ * button) and one session per student (request-otp). Both maps are concurrent and each session
+ * moves ISSUED -> VERIFIED or ISSUED -> EXPIRED with a single compare-and-set, so two students
+ * never overwrite each other's OTP and one OTP can only be verified once.
+ */
+@Service
+public class OtpSessionRegistry {
+
+    public enum State { ISSUED, VERIFIED, EXPIRED }
+
+    public enum Verification { VERIFIED, INVALID, EXPIRED, USED, NOT_FOUND }
+
+    /** One issued OTP or classroom window; otp is null for classroom windows. */
+    public static final class Session {
+        private final String otp;
+        private final long issuedAtMillis;
+        private final long expiresAtMillis;
+        private final AtomicReference<State> state = new AtomicReference<>(State.ISSUED);
+
+        Session(String otp, long issuedAtMillis, long expiresAtMillis) {
+            this.otp = otp;
+            this.issuedAtMillis = issuedAtMillis;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public long getIssuedAtMillis() { return issuedAtMillis; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+
+        // Moves an overdue ISSUED session to EXPIRED on the way
+        public State state(long now) {
+            if (now >= expiresAtMillis) state.compareAndSet(State.ISSUED, State.EXPIRED);
+            return state.get();
+        }
+
+        public long remainingMillis(long now) {
+            return state(now) == State.ISSUED ? expiresAtMillis - now : 0;
+        }
+    }
+
+    private final Map<String, Session> classroomWindows = new ConcurrentHashMap<>();
+    private final Map<String, Session> studentSessions = new ConcurrentHashMap<>();
+
+    // ==============================
+    // CLASSROOM WINDOWS
+    // ==============================
+    // A new Send OTP replaces the classroom's previous window
+    public Session openClassroom(String classroomCode, long validMillis) {
+        long now = System.currentTimeMillis();
+        Session window = new Session(null, now, now + validMillis);
+        classroomWindows.put(classroomCode, window);
+        return window;
+    }
+
+    public long classroomRemainingMillis(String classroomCode) {
+        Session window = classroomWindows.get(classroomCode);
+        return window == null ? 0 : window.remainingMillis(System.currentTimeMillis());
+    }
+
+    // Longest remaining window across all classrooms
+    public long maxRemainingMillis() {
+        long now = System.currentTimeMillis();
+        long remaining = 0;
+        for (Session window : classroomWindows.values()) remaining = Math.max(remaining, window.remainingMillis(now));
+        return remaining;
+    }
+
+    public long activeClassrooms() {
+        long now = System.currentTimeMillis();
+        return classroomWindows.values().stream().filter(window -> window.state(now) == State.ISSUED).count();
+    }
+
+    // ==============================
+    // STUDENT SESSIONS
+    // ==============================
+    // A new request replaces the student's previous OTP, never another student's
+    public Session issueStudentOtp(String rollNumber, String otp, long validMillis) {
+        long now = System.currentTimeMillis();
+        Session session = new Session(otp, now, now + validMillis);
+        studentSessions.put(rollNumber, session);
+        return session;
+    }
+
+    public Verification verifyStudentOtp(String rollNumber, String otp) {
+        Session session = studentSessions.get(rollNumber);
+        if (session == null) return Verification.NOT_FOUND;
+
+        State state = session.state(System.currentTimeMillis());
+        if (state == State.EXPIRED) {
+            studentSessions.remove(rollNumber, session);
+            return Verification.EXPIRED;
+        }
+        if (state == State.VERIFIED) return Verification.USED;
+        if (!session.otp.equals(otp)) return Verification.INVALID;
+
+        // Exactly one caller wins; a racing expiry or second submit sees the new state instead
+        if (session.state.compareAndSet(State.ISSUED, State.VERIFIED)) {
+            studentSessions.remove(rollNumber, session);
+            return Verification.VERIFIED;
+        }
+        return session.state.get() == State.VERIFIED ? Verification.USED : Verification.EXPIRED;
+    }
+
+    public long studentRemainingMillis(String rollNumber) {
+        Session session = studentSessions.get(rollNumber);
+        return session == null ? 0 : session.remainingMillis(System.currentTimeMillis());
+    }
+
+    // Drop finished sessions; remove(key, value) leaves a session that was just replaced alone
+    @Scheduled(fixedDelay = 5_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        classroomWindows.forEach((code, window) -> {
+            if (window.state(now) != State.ISSUED) classroomWindows.remove(code, window);
+        });
+        studentSessions.forEach((roll, session) -> {
+            if (session.state(now) != State.ISSUED) studentSessions.remove(roll, session);
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.attendance.smartattendance.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes "otp-opened" / "otp-closed" events to open student pages, one topic per classroom.
+ * Pages opened without a classroom code listen on the "*" topic, which hears about every
+ * classroom, matching the polling endpoint without a code.
+ *
+ * Window times come from OtpSessionRegistry, the same source the polling endpoints read; this
+ * service only remembers which windows it has announced, so it knows which ones to close.
+ */
+@Service
+public class OtpStatusStreamService {
+
+    public static final String ALL_CLASSROOMS = "*";
+
+    private final SseBroadcaster broadcaster;
+    private final OtpSessionRegistry otpSessionRegistry;
+
+    // Classroom codes announced as open and not yet announced as closed
+    private final Set<String> announced = ConcurrentHashMap.newKeySet();
+
+    public OtpStatusStreamService(@Value("${otp.stream.timeout-ms:1800000}") long timeoutMs,
+                                  OtpSessionRegistry otpSessionRegistry) {
+        this.broadcaster = new SseBroadcaster(timeoutMs);
+        this.otpSessionRegistry = otpSessionRegistry;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        broadcaster.shutdown();
+    }
+
+    public SseEmitter subscribe(String classroomCode) {
+        String topic = classroomCode == null || classroomCode.isEmpty() ? ALL_CLASSROOMS : classroomCode;
+        SseEmitter emitter = broadcaster.subscribe(topic);
+
+        // Current state straight away, so a page opened mid-window starts its timer
+        long remaining = remainingSeconds(topic);
+        if (remaining > 0) {
+            broadcaster.send(emitter, "otp-opened", event(topic, remaining));
+        } else {
+            broadcaster.send(emitter, "otp-closed", event(topic, 0));
+        }
+        return emitter;
+    }
+
+    // Call after the window is opened in OtpSessionRegistry
+    public void opened(String classroomCode) {
+        announced.add(classroomCode);
+        long validSeconds = toSeconds(otpSessionRegistry.classroomRemainingMillis(classroomCode));
+
+        if (ALL_CLASSROOMS.equals(classroomCode)) {
+            // An OTP sent to every student opens the window for every classroom
+            broadcaster.publishToAll("otp-opened", event(classroomCode, validSeconds));
+        } else {
+            broadcaster.publish(classroomCode, "otp-opened", event(classroomCode, validSeconds));
+            broadcaster.publish(ALL_CLASSROOMS, "otp-opened", event(classroomCode, validSeconds));
+        }
+    }
+
+    @Scheduled(fixedRate = 1_000)
+    public void closeExpiredWindows() {
+        boolean closedAny = announced.removeIf(classroomCode -> {
+            if (otpSessionRegistry.classroomRemainingMillis(classroomCode) > 0) return false;
+            if (ALL_CLASSROOMS.equals(classroomCode)) {
+                broadcaster.publishToAll("otp-closed", event(ALL_CLASSROOMS, 0));
+            } else if (otpSessionRegistry.classroomRemainingMillis(ALL_CLASSROOMS) <= 0) {
+                broadcaster.publish(classroomCode, "otp-closed", event(classroomCode, 0));
+            }
+            return true;
+        });
+
+        // Pages without a classroom code close once no window is open anywhere
+        if (closedAny && otpSessionRegistry.maxRemainingMillis() <= 0) {
+            broadcaster.publish(ALL_CLASSROOMS, "otp-closed", event(ALL_CLASSROOMS, 0));
+        }
+    }
+
+    @Scheduled(fixedRate = 20_000)
+    public void heartbeat() {
+        broadcaster.heartbeat();
+    }
+
+    public long getSubscribers() {
+        return broadcaster.getSubscribers();
+    }
+
+    private long remainingSeconds(String topic) {
+        long remaining = ALL_CLASSROOMS.equals(topic)
+                ? otpSessionRegistry.maxRemainingMillis()
+                : Math.max(otpSessionRegistry.classroomRemainingMillis(topic),
+                        otpSessionRegistry.classroomRemainingMillis(ALL_CLASSROOMS));
+        return toSeconds(remaining);
+    }
+
+    // Rounded up like OtpService, so the stream and the polling endpoint agree
+    private static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
+    private static Map<String, Object> event(String classroomCode, long remainingSeconds) {
+        return Map.of("classroomCode", classroomCode, "remainingSeconds", remainingSeconds);
+    }
+}
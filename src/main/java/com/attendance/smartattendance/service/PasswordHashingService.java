@@ -0,0 +1,122 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on its own small pool so a burst of teacher logins cannot take every core away from
+ * the submit-otp path. auth.hashing.threads workers (default: half the cores) take work from a
+ * queue of auth.hashing.queue-capacity; when the queue is full the caller gets a 429 instead of
+ * queueing behind minutes of hashing.
+ *
+ * The calling request thread waits for its hash (on a virtual thread that wait is just a park).
+ * Metrics: auth.hashing.wait (time queued), auth.hashing.compute (time hashing),
+ * auth.hashing.rejected, and gauges for queue depth and busy workers.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired private BCryptPasswordEncoder passwordEncoder;
+    @Autowired private OtpMetrics otpMetrics;
+
+    // 0 = half the available processors (at least one)
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    private Timer computeTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        int workers = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        waitTimer = otpMetrics.timer("auth.hashing.wait", "Time a password hash waited for a hashing thread");
+        computeTimer = otpMetrics.timer("auth.hashing.compute", "Time spent computing one BCrypt hash or check");
+        rejected = otpMetrics.counter("auth.hashing.rejected", "Hash requests refused because the queue was full");
+        otpMetrics.gauge("auth.hashing.queue", "Password hashes waiting for a thread", () -> executor.getQueue().size());
+        otpMetrics.gauge("auth.hashing.active", "Hashing threads busy", executor::getActiveCount);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // True when the stored hash uses a lower work factor than auth.bcrypt.strength
+    public boolean needsUpgrade(String encodedPassword) {
+        return encodedPassword != null && passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> hash) {
+        long queuedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return hash.call();
+                } finally {
+                    computeTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Server busy, try again shortly", 1);
+        }
+
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Password check interrupted");
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new TooManyRequestsException("Server busy, try again shortly", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new RuntimeException("Password hashing failed");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.attendance.smartattendance.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fan-out of Server-Sent Events to subscribers grouped by topic (a classroom code).
+ *
+ * Emitters are plain async servlet responses, so an idle subscriber holds no thread. Every
+ * subscriber has its own queue drained by at most one virtual thread at a time: events reach a
+ * client in the order they were published, and one slow client never delays the rest of a
+ * broadcast. A subscriber whose send fails, or that falls MAX_PENDING events behind, is dropped.
+ * A topic whose last subscriber leaves is removed.
+ */
+public class SseBroadcaster {
+
+    private static final int MAX_PENDING = 256;
+
+    /** One emitter and the events still to be written to it. */
+    private final class Subscriber {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (pendingCount.incrementAndGet() > MAX_PENDING) {
+                pendingCount.decrementAndGet();
+                drop(this, new IllegalStateException("Subscriber fell " + MAX_PENDING + " events behind"));
+                return;
+            }
+            pending.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) sender.execute(this::drain);
+        }
+
+        // Only one drain runs per subscriber, so its events are written one after another
+        private void drain() {
+            SseEmitter.SseEventBuilder event;
+            while ((event = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    drop(this, e);
+                    pending.clear();
+                    break;
+                }
+            }
+            draining.set(false);
+            // An event added after the last poll but before the flag was cleared
+            if (!pending.isEmpty()) scheduleDrain();
+        }
+    }
+
+    private final long emitterTimeoutMs;
+    private final Map<String, Set<Subscriber>> subscribersByTopic = new ConcurrentHashMap<>();
+    private final Map<SseEmitter, Subscriber> subscribersByEmitter = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public SseBroadcaster(long emitterTimeoutMs) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public SseEmitter subscribe(String topic) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        subscribersByEmitter.put(emitter, subscriber);
+        // compute() on the topic key, so a subscribe cannot land in a set that is being removed
+        subscribersByTopic.compute(topic, (t, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    // Send to one subscriber, typically the current state right after subscribing
+    public void send(SseEmitter emitter, String eventName, Object data) {
+        Subscriber subscriber = subscribersByEmitter.get(emitter);
+        if (subscriber != null) subscriber.enqueue(SseEmitter.event().name(eventName).data(data));
+    }
+
+    public void publish(String topic, String eventName, Object data) {
+        published.increment();
+        Set<Subscriber> subscribers = subscribersByTopic.get(topic);
+        if (subscribers == null) return;
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(SseEmitter.event().name(eventName).data(data));
+        }
+    }
+
+    public void publishToAll(String eventName, Object data) {
+        subscribersByTopic.keySet().forEach(topic -> publish(topic, eventName, data));
+    }
+
+    // Comment line that keeps proxies from closing idle connections and flushes out dead ones
+    public void heartbeat() {
+        subscribersByEmitter.values().forEach(subscriber -> subscriber.enqueue(SseEmitter.event().comment("keep-alive")));
+    }
+
+    public long getSubscribers() { return subscribersByEmitter.size(); }
+    public long getPublished() { return published.sum(); }
+    public long getDropped() { return dropped.sum(); }
+
+    public void shutdown() {
+        sender.shutdown();
+        subscribersByEmitter.keySet().forEach(SseEmitter::complete);
+    }
+
+    private void drop(Subscriber subscriber, Exception cause) {
+        dropped.increment();
+        remove(subscriber);
+        subscriber.emitter.completeWithError(cause);
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribersByEmitter.remove(subscriber.emitter, subscriber);
+        subscribersByTopic.computeIfPresent(subscriber.topic, (t, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+}
@@ -0,0 +1,281 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.StudentImportReportDTO;
+import com.attendance.smartattendance.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.json.JsonParseException;
+import org.springframework.boot.json.JsonParser;
+import org.springframework.boot.json.JsonParserFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming student import from CSV (header row: name, rollNumber, email in any order) or NDJSON
+ * (one {"name", "rollNumber", "email"} object per line).
+ *
+ * The body is read line by line and handled in chunks of student.import.chunk-size rows: each
+ * chunk is checked against the students table with one roll-number query and one email query,
+ * then inserted as a single JDBC batch in its own transaction. Rows from earlier chunks are
+ * already in the table when the next chunk is checked, so only one chunk is ever held in memory.
+ * A chunk that still hits the unique keys (a concurrent add-student) is inserted again row by row,
+ * so only the conflicting rows are skipped and reported. A CSV header without rollNumber and email
+ * columns rejects the whole upload: the report carries the reason in error and nothing is read.
+ */
+@Service
+public class StudentImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_STUDENT_SQL =
+            "INSERT INTO students (name, roll_number, email, classroom_code) VALUES (?, ?, ?, ?)";
+
+    private record ImportRow(long line, String name, String rollNumber, String email) {}
+
+    @Autowired private StudentRepository studentRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private DashboardCache dashboardCache;
+
+    @Value("${student.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public StudentImportReportDTO importStudents(String classroomCode, InputStream body, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        RowParser parser = format == Format.NDJSON ? new NdjsonParser() : null;
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) continue;
+            if (parser == null) { // CSV: the first non-blank line is the header
+                try {
+                    parser = new CsvParser(text);
+                } catch (IllegalArgumentException e) {
+                    progress.skip(line, e.getMessage());
+                    return report(progress, System.currentTimeMillis() - start, e.getMessage());
+                }
+                continue;
+            }
+
+            progress.rowsRead++;
+            ImportRow row;
+            try {
+                row = parser.parse(line, text);
+            } catch (IllegalArgumentException e) {
+                progress.skip(line, e.getMessage());
+                progress.invalid++;
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                writeChunk(classroomCode, chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) writeChunk(classroomCode, chunk, progress);
+
+        if (progress.imported > 0) dashboardCache.invalidate(classroomCode);
+        long duration = System.currentTimeMillis() - start;
+        System.out.println("Student import into " + classroomCode + ": " + progress.imported + " of "
+                + progress.rowsRead + " rows in " + progress.chunks + " chunks, " + duration + " ms");
+
+        return report(progress, duration, null);
+    }
+
+    private static StudentImportReportDTO report(Progress progress, long duration, String error) {
+        return new StudentImportReportDTO(progress.rowsRead, progress.imported, progress.invalid,
+                progress.duplicateInFile, progress.rollNumberTaken, progress.emailTaken, progress.conflicts,
+                progress.chunks, duration, progress.errors, error);
+    }
+
+    private void writeChunk(String classroomCode, List<ImportRow> chunk, Progress progress) {
+        progress.chunks++;
+
+        Set<String> rollNumbers = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : chunk) {
+            rollNumbers.add(row.rollNumber());
+            emails.add(row.email());
+        }
+        Set<String> takenRollNumbers = new HashSet<>(studentRepository.findExistingRollNumbers(rollNumbers));
+        Set<String> takenEmails = new HashSet<>();
+        for (String email : studentRepository.findExistingEmails(emails)) takenEmails.add(email.toLowerCase(Locale.ROOT));
+
+        // Reuse the sets to catch repeats inside the chunk
+        rollNumbers.clear();
+        emails.clear();
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        List<Object[]> inserts = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            String email = row.email().toLowerCase(Locale.ROOT);
+            if (takenRollNumbers.contains(row.rollNumber())) {
+                progress.rollNumberTaken++;
+                progress.skip(row.line(), "roll number " + row.rollNumber() + " already exists");
+            } else if (takenEmails.contains(email)) {
+                progress.emailTaken++;
+                progress.skip(row.line(), "email " + row.email() + " already exists");
+            } else if (!rollNumbers.add(row.rollNumber()) || !emails.add(email)) {
+                progress.duplicateInFile++;
+                progress.skip(row.line(), "repeats an earlier row in the file");
+            } else {
+                accepted.add(row);
+                inserts.add(new Object[]{row.name(), row.rollNumber(), row.email(), classroomCode});
+            }
+        }
+        if (inserts.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(INSERT_STUDENT_SQL, inserts));
+            progress.imported += inserts.size();
+        } catch (DataIntegrityViolationException e) {
+            // Someone added one of these students since the check: one insert per row, so only that row is lost
+            for (ImportRow row : accepted) {
+                try {
+                    jdbcTemplate.update(INSERT_STUDENT_SQL, row.name(), row.rollNumber(), row.email(), classroomCode);
+                    progress.imported++;
+                } catch (DataIntegrityViolationException conflict) {
+                    progress.conflicts++;
+                    progress.skip(row.line(), "roll number " + row.rollNumber() + " or email " + row.email()
+                            + " was added meanwhile");
+                }
+            }
+        }
+    }
+
+    // ==============================
+    // PARSING
+    // ==============================
+    private interface RowParser {
+        ImportRow parse(long line, String text);
+    }
+
+    private static ImportRow row(long line, String name, String rollNumber, String email) {
+        rollNumber = rollNumber == null ? "" : rollNumber.trim();
+        email = email == null ? "" : email.trim();
+        if (rollNumber.isEmpty()) throw new IllegalArgumentException("missing roll number");
+        if (email.isEmpty() || email.indexOf('@') < 1) throw new IllegalArgumentException("invalid email");
+        return new ImportRow(line, name == null ? null : name.trim(), rollNumber, email);
+    }
+
+    private static final class NdjsonParser implements RowParser {
+        private final JsonParser json = JsonParserFactory.getJsonParser();
+
+        @Override
+        public ImportRow parse(long line, String text) {
+            Map<String, Object> fields;
+            try {
+                fields = json.parseMap(text);
+            } catch (JsonParseException e) {
+                throw new IllegalArgumentException("not a JSON object");
+            }
+            return row(line, string(fields.get("name")), string(fields.get("rollNumber")), string(fields.get("email")));
+        }
+
+        private static String string(Object value) {
+            return value == null ? null : value.toString();
+        }
+    }
+
+    /** RFC 4180 fields on a single line: commas, double quotes, "" inside quotes. */
+    private static final class CsvParser implements RowParser {
+        private final int nameColumn;
+        private final int rollNumberColumn;
+        private final int emailColumn;
+
+        CsvParser(String header) {
+            List<String> columns = split(header);
+            int name = -1, rollNumber = -1, email = -1;
+            for (int i = 0; i < columns.size(); i++) {
+                switch (columns.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "")) {
+                    case "name" -> name = i;
+                    case "rollnumber", "rollno", "roll" -> rollNumber = i;
+                    case "email" -> email = i;
+                    default -> { }
+                }
+            }
+            if (rollNumber < 0 || email < 0) {
+                throw new IllegalArgumentException("CSV header must name the rollNumber and email columns");
+            }
+            this.nameColumn = name;
+            this.rollNumberColumn = rollNumber;
+            this.emailColumn = email;
+        }
+
+        @Override
+        public ImportRow parse(long line, String text) {
+            List<String> fields = split(text);
+            return row(line, field(fields, nameColumn), field(fields, rollNumberColumn), field(fields, emailColumn));
+        }
+
+        private static String field(List<String> fields, int column) {
+            return column >= 0 && column < fields.size() ? fields.get(column) : null;
+        }
+
+        private static List<String> split(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) throw new IllegalArgumentException("unterminated quote");
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /** Running totals for one import. */
+    private static final class Progress {
+        long rowsRead;
+        long imported;
+        long invalid;
+        long duplicateInFile;
+        long rollNumberTaken;
+        long emailTaken;
+        long conflicts;
+        int chunks;
+        final List<String> errors = new ArrayList<>();
+
+        void skip(long line, String reason) {
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add("line " + line + ": " + reason);
+        }
+    }
+}
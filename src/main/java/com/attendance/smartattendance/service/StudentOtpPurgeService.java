@@ -0,0 +1,197 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.MaintenanceJobReportDTO;
+import com.attendance.smartattendance.repository.StudentOtpRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Removes student_otp rows that expired more than otp.purge.retention-days ago. Every OTP dispatch
+ * inserts one row per student and nothing else deletes them.
+ *
+ * Like the daily reset, the purge walks id ranges of otp.purge.chunk-size rows, one short
+ * transaction per range, so no statement holds locks for long while OTPs are being issued. With
+ * otp.purge.archive-dir set, each range is first appended to a gzipped CSV for that run
+ * (student_otp-yyyyMMdd-HHmmss.csv.gz) and only deleted once it is flushed to the file.
+ */
+@Service
+public class StudentOtpPurgeService {
+
+    private static final String JOB = "purge-student-otp";
+    private static final String ARCHIVE_SQL =
+            "SELECT id, student_id, roll_number, otp, expiry_time, used FROM student_otp " +
+            "WHERE id BETWEEN ? AND ? AND expiry_time < ? ORDER BY id";
+    private static final DateTimeFormatter ARCHIVE_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired private StudentOtpRepository studentOtpRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private OtpMetrics otpMetrics;
+
+    @Value("${otp.purge.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${otp.purge.chunk-size:5000}")
+    private long chunkSize;
+
+    // Pause between ranges so OTP inserts are not queued behind the purge
+    @Value("${otp.purge.pause-ms:20}")
+    private long pauseMs;
+
+    // Empty = no archive
+    @Value("${otp.purge.archive-dir:}")
+    private String archiveDir;
+
+    private Counter rowsPurged;
+    private Counter rowsArchived;
+    private Timer purgeTimer;
+    private final AtomicReference<MaintenanceJobReportDTO> lastReport = new AtomicReference<>();
+    // One run at a time; not synchronized, since a run holds it across JDBC and file I/O
+    private final ReentrantLock running = new ReentrantLock();
+
+    @PostConstruct
+    void init() {
+        rowsPurged = otpMetrics.counter("otp.purge.rows", "Expired student_otp rows deleted");
+        rowsArchived = otpMetrics.counter("otp.purge.archived", "student_otp rows written to the purge archive");
+        purgeTimer = otpMetrics.timer("otp.purge.duration", "One student_otp purge run");
+    }
+
+    @Scheduled(cron = "${otp.purge.cron:0 15 3 * * *}")
+    public void scheduledPurge() {
+        purge();
+    }
+
+    public MaintenanceJobReportDTO purge() {
+        return purge(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    public MaintenanceJobReportDTO purge(LocalDateTime cutoff) {
+        running.lock();
+        try {
+            return runPurge(cutoff);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private MaintenanceJobReportDTO runPurge(LocalDateTime cutoff) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        Long minId = studentOtpRepository.findMinId();
+        Long maxId = studentOtpRepository.findMaxIdExpiredBefore(cutoff);
+
+        long rows = 0;
+        int chunks = 0;
+        if (minId != null && maxId != null) {
+            try (Writer archive = openArchive(startedAt)) {
+                for (long from = minId; from <= maxId; from += chunkSize) {
+                    long to = Math.min(from + chunkSize - 1, maxId);
+                    rows += purgeRange(from, to, cutoff, archive);
+                    chunks++;
+                    if (pauseMs > 0 && to < maxId) pause();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Student OTP archive failed: " + e.getMessage());
+            }
+        }
+
+        long nanos = System.nanoTime() - start;
+        purgeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        MaintenanceJobReportDTO report = new MaintenanceJobReportDTO(JOB, rows, chunks, 1, nanos / 1_000_000, startedAt);
+        lastReport.set(report);
+        System.out.println("Maintenance " + JOB + ": " + rows + " rows expired before " + cutoff
+                + " in " + chunks + " chunks, " + report.getDurationMillis() + " ms");
+        return report;
+    }
+
+    public MaintenanceJobReportDTO lastReport() {
+        return lastReport.get();
+    }
+
+    private long purgeRange(long from, long to, LocalDateTime cutoff, Writer archive) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            if (archive != null) {
+                long archived = archiveRange(from, to, cutoff, archive);
+                rowsArchived.increment(archived);
+            }
+            return studentOtpRepository.deleteExpiredByIdBetween(from, to, cutoff);
+        });
+        int rows = deleted == null ? 0 : deleted;
+        rowsPurged.increment(rows);
+        return rows;
+    }
+
+    // Written and flushed inside the range's transaction, before its delete commits
+    private long archiveRange(long from, long to, LocalDateTime cutoff, Writer archive) {
+        long[] count = {0};
+        try {
+            jdbcTemplate.query(ARCHIVE_SQL, rs -> {
+                try {
+                    Timestamp expiry = rs.getTimestamp(5);
+                    long studentId = rs.getLong(2);
+                    String student = rs.wasNull() ? "" : String.valueOf(studentId);
+                    archive.write(rs.getLong(1) + "," + student + "," + nullToEmpty(rs.getString(3)) + ","
+                            + nullToEmpty(rs.getString(4)) + "," + (expiry == null ? "" : expiry.toLocalDateTime())
+                            + "," + rs.getBoolean(6) + "\n");
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, from, to, Timestamp.valueOf(cutoff));
+            archive.flush();
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Student OTP archive failed, range " + from + "-" + to + " kept: " + e.getMessage());
+        }
+        return count[0];
+    }
+
+    private Writer openArchive(LocalDateTime startedAt) throws IOException {
+        if (archiveDir == null || archiveDir.isBlank()) return null;
+        Path dir = Paths.get(archiveDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("student_otp-" + ARCHIVE_NAME.format(startedAt) + ".csv.gz");
+        // syncFlush: flush() pushes everything written so far through the deflater to disk
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024, true), StandardCharsets.UTF_8));
+        writer.write("id,student_id,roll_number,otp,expiry_time,used\n");
+        return writer;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Student OTP purge interrupted");
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
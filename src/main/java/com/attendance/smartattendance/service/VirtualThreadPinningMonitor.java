@@ -0,0 +1,150 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.PinnedThreadSiteDTO;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread: a blocking call made
+ * inside a synchronized block or method (in our code, the JDBC driver or Jakarta Mail) holds the
+ * carrier for its whole duration, so with spring.threads.virtual.enabled=true a burst of such calls
+ * runs no faster than the carrier pool (one per core).
+ *
+ * Listens to the JFR jdk.VirtualThreadPinned event in-process with a RecordingStream. Pins longer than
+ * diagnostics.pinning.threshold-ms are counted per call site, logged once per new site and timed in
+ * jvm.threads.virtual.pinned. Runs by default whenever virtual threads are enabled.
+ */
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.attendance.";
+    private static final int MAX_SITES = 200;
+
+    @Autowired private OtpMetrics otpMetrics;
+
+    @Value("${diagnostics.pinning.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean enabled;
+
+    @Value("${diagnostics.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final AtomicLong droppedSites = new AtomicLong();
+    private RecordingStream stream;
+    private Timer pinnedTimer;
+
+    private static final class Site {
+        final String site;
+        final String blockedIn;
+        final AtomicLong events = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        Site(String site, String blockedIn) {
+            this.site = site;
+            this.blockedIn = blockedIn;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        pinnedTimer = otpMetrics.timer("jvm.threads.virtual.pinned", "Virtual thread blocked while pinned to its carrier");
+        try {
+            stream = new RecordingStream();
+            stream.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+            stream.onEvent(EVENT, this::record);
+            stream.startAsync();
+            System.out.println("Virtual thread pinning monitor started (threshold " + thresholdMs + " ms)");
+        } catch (RuntimeException e) {
+            // JFR may be unavailable (e.g. disabled in the runtime image); the app runs without the report
+            System.out.println("Virtual thread pinning monitor not started: " + e.getMessage());
+            stream = null;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) stream.close();
+    }
+
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    // Worst sites first
+    public List<PinnedThreadSiteDTO> report() {
+        List<PinnedThreadSiteDTO> report = new ArrayList<>(sites.size());
+        for (Site site : sites.values()) {
+            report.add(new PinnedThreadSiteDTO(site.site, site.blockedIn, site.events.get(),
+                    site.totalNanos.get() / 1_000_000, site.maxNanos.get() / 1_000_000));
+        }
+        report.sort(Comparator.comparingLong(PinnedThreadSiteDTO::getTotalMillis).reversed());
+        return report;
+    }
+
+    public long droppedSites() {
+        return droppedSites.get();
+    }
+
+    void record(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinnedTimer.record(Duration.ofNanos(nanos));
+
+        String siteKey = "unknown";
+        String blockedIn = "unknown";
+        if (event.getStackTrace() != null) {
+            boolean blockedFound = false;
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                String type = frame.getMethod().getType().getName();
+                if (!blockedFound && !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                    blockedIn = describe(frame);
+                    blockedFound = true;
+                }
+                if (type.startsWith(APP_PACKAGE)) {
+                    siteKey = describe(frame);
+                    break;
+                }
+            }
+        }
+
+        String key = siteKey + " | " + blockedIn;
+        Site site = sites.get(key);
+        if (site == null) {
+            if (sites.size() >= MAX_SITES) {
+                droppedSites.incrementAndGet();
+                return;
+            }
+            Site created = new Site(siteKey, blockedIn);
+            site = sites.putIfAbsent(key, created);
+            if (site == null) {
+                site = created;
+                System.out.println("Virtual thread pinned for " + nanos / 1_000_000 + " ms at " + siteKey
+                        + " (blocked in " + blockedIn + ")");
+            }
+        }
+        site.events.incrementAndGet();
+        site.totalNanos.addAndGet(nanos);
+        site.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,73 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version and skip it; new ones start here. Later
+-- changes go in V2 onwards so both kinds of database end up with the same schema.
+-- Kept to syntax shared by MySQL and H2 (MODE=MySQL) so the tests run the same script.
+
+CREATE TABLE students (
+    id               bigint       NOT NULL AUTO_INCREMENT,
+    classroom_code   varchar(255),
+    email            varchar(255) NOT NULL,
+    name             varchar(255),
+    otp              varchar(255),
+    otp_expiry       datetime(6),
+    otp_generated_at datetime(6),
+    present_today    bit,
+    roll_number      varchar(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_students_roll_number UNIQUE (roll_number),
+    CONSTRAINT uk_students_email UNIQUE (email)
+);
+
+CREATE TABLE teachers (
+    id                  bigint       NOT NULL AUTO_INCREMENT,
+    classroom_code      varchar(255),
+    delete_token        varchar(255),
+    delete_token_expiry datetime(6),
+    email               varchar(255),
+    name                varchar(255),
+    otp_expiry          datetime(6),
+    password            varchar(255),
+    reset_otp           varchar(255),
+    teacher_id          varchar(255),
+    verification_token  varchar(255),
+    verified            bit          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_teachers_teacher_id UNIQUE (teacher_id)
+);
+
+CREATE TABLE attendance (
+    id          bigint NOT NULL AUTO_INCREMENT,
+    date        date,
+    otp         varchar(255),
+    otp_expiry  datetime(6),
+    otp_used    bit    NOT NULL,
+    present     bit,
+    roll_number varchar(255),
+    student_id  bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_attendance_student FOREIGN KEY (student_id) REFERENCES students (id)
+);
+
+CREATE TABLE student_otp (
+    id          bigint NOT NULL AUTO_INCREMENT,
+    expiry_time datetime(6),
+    otp         varchar(255),
+    roll_number varchar(255),
+    used        bit    NOT NULL,
+    student_id  bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_student_otp_student FOREIGN KEY (student_id) REFERENCES students (id)
+);
+
+CREATE TABLE weekly_attendance (
+    id          bigint NOT NULL AUTO_INCREMENT,
+    fri         varchar(255),
+    mon         varchar(255),
+    name        varchar(255),
+    roll_number varchar(255),
+    sat         varchar(255),
+    thu         varchar(255),
+    tue         varchar(255),
+    wed         varchar(255),
+    PRIMARY KEY (id)
+);
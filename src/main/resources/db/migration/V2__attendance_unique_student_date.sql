@@ -0,0 +1,16 @@
+-- One attendance row per student and day. Before this key, concurrent OTP submits and manual
+-- updates could each insert a row for the same day; keep the most recent (highest id) of each
+-- group and drop the others so the key can be added. The derived table lets MySQL delete from
+-- the table it reads. Rows without a date are left alone: the key does not cover NULLs.
+DELETE FROM attendance
+WHERE date IS NOT NULL
+  AND id NOT IN (
+      SELECT keep_id FROM (
+          SELECT MAX(id) AS keep_id
+          FROM attendance
+          WHERE date IS NOT NULL
+          GROUP BY student_id, date
+      ) latest
+  );
+
+ALTER TABLE attendance ADD CONSTRAINT uk_attendance_student_date UNIQUE (student_id, date);
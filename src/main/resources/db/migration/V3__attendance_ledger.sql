@@ -0,0 +1,16 @@
+-- Week-per-row attendance bitmask (bit 0 = Monday .. bit 5 = Saturday), see AttendanceLedger.
+-- Keyed by student id: the base schema allows students without a roll number.
+CREATE TABLE attendance_ledger (
+    id             bigint       NOT NULL AUTO_INCREMENT,
+    classroom_code varchar(255),
+    present_mask   int          NOT NULL,
+    recorded_mask  int          NOT NULL,
+    roll_number    varchar(255),
+    student_id     bigint       NOT NULL,
+    week_start     date         NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_ledger_student_week UNIQUE (student_id, week_start)
+);
+CREATE INDEX idx_ledger_classroom_week ON attendance_ledger (classroom_code, week_start);
+-- One student's history by roll number (findByRollNumberAndWeekStartBetween...)
+CREATE INDEX idx_ledger_roll_week ON attendance_ledger (roll_number, week_start);
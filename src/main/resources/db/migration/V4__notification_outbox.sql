@@ -0,0 +1,25 @@
+-- Transactional outbox for mail: rows are written with the change that triggers them and sent by
+-- NotificationOutboxService; dedupe_key makes a repeated enqueue a no-op.
+CREATE TABLE notification_outbox (
+    id              bigint       NOT NULL AUTO_INCREMENT,
+    attempts        int          NOT NULL,
+    body            longtext,
+    claimed_at      datetime(6),
+    created_at      datetime(6),
+    dedupe_key      varchar(255) NOT NULL,
+    last_error      varchar(500),
+    next_attempt_at datetime(6)  NOT NULL,
+    recipient       varchar(255) NOT NULL,
+    sent_at         datetime(6),
+    status          varchar(16)  NOT NULL,
+    subject         varchar(255),
+    expires_at      datetime(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_outbox_dedupe_key UNIQUE (dedupe_key)
+);
+CREATE INDEX idx_outbox_status_next_attempt ON notification_outbox (status, next_attempt_at);
+-- Stale SENDING claims in findDue, and the purge of old SENT rows
+CREATE INDEX idx_outbox_status_claimed ON notification_outbox (status, claimed_at);
+CREATE INDEX idx_outbox_status_sent ON notification_outbox (status, sent_at);
+-- Rows whose content stops being valid (reset OTPs, delete links): skipped once passed, then swept
+CREATE INDEX idx_outbox_expires_at ON notification_outbox (expires_at);
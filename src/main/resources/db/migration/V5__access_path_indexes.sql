@@ -0,0 +1,25 @@
+-- One index per repository access path; RepositoryIndexUsageTests EXPLAINs every query on H2
+-- and fails on a full table scan.
+
+-- attendance: findByDate, min/max id of a day and the daily reset's id-range deletes
+CREATE INDEX idx_attendance_date_id ON attendance (date, id);
+-- attendance: findByRollNumberAndOtpAndDate ((student_id, date) is the unique key)
+CREATE INDEX idx_attendance_roll_otp_date ON attendance (roll_number, otp, date);
+
+-- student_otp: latest unused OTP of a student, OTP lookup and the write-behind "used" update
+CREATE INDEX idx_student_otp_student_used_expiry ON student_otp (student_id, used, expiry_time);
+-- student_otp: findByUsedFalseAndExpiryTimeBefore
+CREATE INDEX idx_student_otp_used_expiry ON student_otp (used, expiry_time);
+
+-- students: findByClassroomCode and the dashboard query, which orders by id
+CREATE INDEX idx_students_classroom_id ON students (classroom_code, id);
+
+-- teachers: login/verify/delete lookups (teacher_id is already unique)
+CREATE INDEX idx_teachers_email ON teachers (email);
+CREATE INDEX idx_teachers_verification_token ON teachers (verification_token);
+CREATE INDEX idx_teachers_delete_token ON teachers (delete_token);
+
+-- attendance_ledger: findByWeekStartOrderByRollNumber (findByWeekStartAndStudentIdIn uses uk_ledger_student_week)
+CREATE INDEX idx_ledger_week_roll ON attendance_ledger (week_start, roll_number);
+-- attendance_ledger: export reads a classroom in roll number, student, week order
+CREATE INDEX idx_ledger_classroom_roll_week ON attendance_ledger (classroom_code, roll_number, student_id, week_start);
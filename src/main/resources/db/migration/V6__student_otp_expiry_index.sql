@@ -0,0 +1,2 @@
+-- student_otp purge: highest expired id (max(id) where expiry_time < cutoff) read from the index alone
+CREATE INDEX idx_student_otp_expiry ON student_otp (expiry_time);
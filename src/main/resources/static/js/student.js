@@ -11,33 +11,64 @@ let timerInterval = null; // global so we can stop it when OTP is verified
 timerEl.style.color = "red";
 timerEl.innerText = "⏳";
 
-/* 🔁 CHECK OTP GENERATED BY TEACHER */
+// Optional ?classroom=CODE in the page link scopes the OTP window to that classroom
+const classroomCode = new URLSearchParams(window.location.search).get("classroom");
+const otpStatusUrl = classroomCode
+    ? `/api/students/otp-status?classroomCode=${encodeURIComponent(classroomCode)}`
+    : "/api/students/otp-status";
+
+const otpStreamUrl = classroomCode
+    ? `/api/students/otp-stream?classroomCode=${encodeURIComponent(classroomCode)}`
+    : "/api/students/otp-stream";
+
+/* ▶️ OTP WINDOW OPENED */
+function onOtpOpened(remainingSeconds) {
+    if (timerStarted) return;
+    timerStarted = true;
+
+    // Hide waiting modal
+    waitingModal.classList.add("hidden");
+
+    // Enable form
+    submitBtn.disabled = false;
+    msg.innerText = "";
+
+    // Start timer for whatever is left of the 2-minute window
+    startTimer(remainingSeconds);
+}
+
+/* 🔁 CHECK OTP GENERATED BY TEACHER (polling fallback) */
 function checkOtpStatus() {
-    fetch("/api/students/otp-status")
+    fetch(otpStatusUrl)
         .then(res => res.json())
         .then(isGenerated => {
-            if (isGenerated && !timerStarted) {
-                timerStarted = true;
-                
-                // Hide waiting modal
-                waitingModal.classList.add("hidden");
-                
-                // Enable form
-                submitBtn.disabled = false;
-                msg.innerText = "";
-                
-                // Start 2-minute timer
-                startTimer(120);
-            }
+            if (isGenerated) onOtpOpened(120);
         })
         .catch(err => console.error("Error checking OTP status:", err));
 }
 
-// Check every 2 seconds
-setInterval(checkOtpStatus, 2000);
+let pollInterval = null;
 
-// Check immediately on page load
-checkOtpStatus();
+function startPolling() {
+    if (pollInterval) return;
+    // Check every 2 seconds
+    pollInterval = setInterval(checkOtpStatus, 2000);
+    checkOtpStatus();
+}
+
+/* 📡 SERVER PUSH: the server tells us when the OTP window opens */
+if (window.EventSource) {
+    const otpStream = new EventSource(otpStreamUrl);
+    otpStream.addEventListener("otp-opened", e => {
+        onOtpOpened(JSON.parse(e.data).remainingSeconds);
+    });
+    otpStream.onerror = () => {
+        // EventSource reconnects by itself; poll only if the stream is gone for good
+        if (otpStream.readyState === EventSource.CLOSED) startPolling();
+    };
+} else {
+    startPolling();
+}
 
 /* ⏱ TIMER */
 function startTimer(seconds) {
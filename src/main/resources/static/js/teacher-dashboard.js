@@ -1,6 +1,7 @@
 document.addEventListener("DOMContentLoaded", () => {
   resetTodayColumnIfNewDay();
   loadStudents();
+  subscribeAttendanceStream();
 });
 
 /* ==============================
@@ -15,17 +16,10 @@ function loadStudents() {
 
       students.forEach(s => {
 
-        let todayValue = "null";
-        if (s.presentToday === true) {
-          todayValue = `<span class="status present">P</span>`;
-        } else if (s.presentToday === false) {
-          todayValue = `<span class="status absent">A</span>`;
-        } else {
-          todayValue = `<span class="today-empty">-</span>`;
-        }
+        const todayValue = todayCell(s.presentToday);
 
         tbody.innerHTML += `
-          <tr>
+          <tr data-roll="${s.rollNumber}">
             <td>${s.id}</td>
             <td>${s.name}</td>
             <td>${s.rollNumber}</td>
@@ -41,6 +35,30 @@ function loadStudents() {
     });
 }
 
+function todayCell(presentToday) {
+  if (presentToday === true) {
+    return `<span class="status present">P</span>`;
+  } else if (presentToday === false) {
+    return `<span class="status absent">A</span>`;
+  }
+  return `<span class="today-empty">-</span>`;
+}
+
+/* ==============================
+   LIVE ATTENDANCE (apply one row per event instead of reloading)
+================================ */
+function subscribeAttendanceStream() {
+  if (!window.EventSource) return;
+
+  const stream = new EventSource("/api/teacher/attendance-stream");
+  stream.addEventListener("attendance", e => {
+    const delta = JSON.parse(e.data);
+    const row = document.querySelector(`#studentTableBody tr[data-roll="${CSS.escape(delta.rollNumber)}"]`);
+    if (!row) return;
+    row.querySelector(".today-cell").innerHTML = todayCell(delta.status === "P");
+  });
+}
+
 /* ==============================
    ADD STUDENT
 ================================ */
@@ -150,19 +168,13 @@ function deleteStudent(id) {
 /* ==============================
    OTP LOGIC
    - Send OTP
-   - After 2 minutes update attendance
+   - The 'Today' column fills in live as students submit
 ================================ */
 function sendOtp() {
   fetch("/api/teacher/send-otp", { method: "POST" })
     .then(res => res.json())
     .then(_data => {
-      alert("✅ OTP sent to all students. Valid for 2 minutes.\n\nAttendance will be updated in 2 minutes...");
-      
-      // Wait 2 minutes before refreshing student list to show attendance
-      setTimeout(() => {
-        loadStudents(); // Now display P/A status after OTP window closes
-        alert("📊 Attendance updated! Check the 'Today' column.");
-      }, 2 * 60 * 1000); // 2 minutes = 120 seconds
+      alert("✅ OTP sent to all students. Valid for 2 minutes.\n\nThe 'Today' column updates as students submit.");
     })
     .catch(err => {
       console.error("Failed to send OTP:", err);
@@ -191,7 +203,7 @@ function openWeeklyAttendancePopup() {
                 attendanceTableBody.innerHTML = `
                   <tr>
                     <td colspan="9" style="text-align: center; padding: 20px; font-size: 18px; color: #666;">
-                      No weekly attendance yet. Mark attendance (Send OTP / student submit) to see the report.
+                      No students in this classroom yet.
                     </td>
                   </tr>
                 `;
@@ -0,0 +1,65 @@
+package com.attendance.smartattendance.controller.api;
+
+import com.attendance.smartattendance.entity.Teacher;
+import com.attendance.smartattendance.repository.TeacherRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AttendanceExportControllerTests {
+
+	private static final LocalDate FROM = LocalDate.of(2026, 10, 12);
+
+	@Autowired private AttendanceController attendanceController;
+	@Autowired private TeacherRepository teacherRepository;
+
+	@Test
+	void badRangeOrFormatIsRejectedBeforeStreaming() {
+		MockHttpSession session = teacherSession("export-a");
+
+		ResponseEntity<?> backwards = attendanceController.export(FROM, FROM.minusDays(1), "csv", session);
+		assertEquals(HttpStatus.BAD_REQUEST, backwards.getStatusCode());
+		assertEquals("Export end date is before its start date", backwards.getBody());
+
+		ResponseEntity<?> unknown = attendanceController.export(FROM, FROM.plusDays(6), "xlsx", session);
+		assertEquals(HttpStatus.BAD_REQUEST, unknown.getStatusCode());
+		assertEquals("Unknown export format: xlsx", unknown.getBody());
+	}
+
+	@Test
+	void validRequestStreams() {
+		MockHttpSession session = teacherSession("export-b");
+
+		ResponseEntity<?> csv = attendanceController.export(FROM, FROM, "CSV", session);
+		assertEquals(HttpStatus.OK, csv.getStatusCode());
+		assertInstanceOf(StreamingResponseBody.class, csv.getBody());
+
+		ResponseEntity<?> columnar = attendanceController.export(FROM, FROM.plusDays(6), "columnar", session);
+		assertEquals(HttpStatus.OK, columnar.getStatusCode());
+		assertInstanceOf(StreamingResponseBody.class, columnar.getBody());
+	}
+
+	private MockHttpSession teacherSession(String classroomCode) {
+		Teacher teacher = new Teacher();
+		teacher.setTeacherId("T-" + classroomCode);
+		teacher.setEmail(classroomCode + "@teacher.test");
+		teacher.setClassroomCode(classroomCode);
+		teacherRepository.save(teacher);
+
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute("teacherId", teacher.getTeacherId());
+		return session;
+	}
+}
@@ -0,0 +1,144 @@
+package com.attendance.smartattendance.controller.api;
+
+import com.attendance.smartattendance.dto.AttendanceUpdateRequest;
+import com.attendance.smartattendance.dto.AttendanceUpdateResultDTO;
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.entity.Teacher;
+import com.attendance.smartattendance.repository.StudentRepository;
+import com.attendance.smartattendance.repository.TeacherRepository;
+import com.attendance.smartattendance.service.AttendanceLedgerService;
+import com.attendance.smartattendance.service.AttendanceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {"dashboard.cache.ttl-ms=0", "attendance.bulk-update.max-rows=5"})
+@ActiveProfiles("h2")
+class BulkAttendanceUpdateTests {
+
+	@Autowired private TeacherAuthController teacherAuthController;
+	@Autowired private AttendanceService attendanceService;
+	@Autowired private AttendanceLedgerService attendanceLedgerService;
+	@Autowired private TeacherRepository teacherRepository;
+	@Autowired private StudentRepository studentRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void everyRowGetsItsStatusInRequestOrder() {
+		MockHttpSession session = teacherSession("bulk-a");
+		Student ready = student("bulk-a", "ready", 10);
+		Student early = student("bulk-a", "early", 1);
+		Student elsewhere = student("bulk-b", "elsewhere", 10);
+
+		ResponseEntity<?> response = teacherAuthController.updateStudentsAttendance(List.of(
+				update(ready.getId(), "P"),
+				update(-1L, "P"),
+				update(elsewhere.getId(), "A"),
+				update(ready.getId(), "X"),
+				update(early.getId(), "A")), session);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		List<String> statuses = new ArrayList<>();
+		for (Object row : (List<?>) response.getBody()) statuses.add(((AttendanceUpdateResultDTO) row).getStatus());
+		assertEquals(List.of("UPDATED", "NOT_FOUND", "OTHER_CLASSROOM", "INVALID_VALUE", "TOO_EARLY"), statuses);
+
+		assertEquals(Boolean.TRUE, presentToday(ready));
+		assertEquals(0, rowsFor(early));
+		assertEquals(0, rowsFor(elsewhere));
+	}
+
+	@Test
+	void acceptedRowsAreWrittenInOneTransaction() {
+		MockHttpSession session = teacherSession("bulk-c");
+		Student first = student("bulk-c", "first", 10);
+		Student second = student("bulk-c", "second", 10);
+
+		// The ledger batch runs after the attendance batch; its failure must undo both
+		ReflectionTestUtils.setField(attendanceService, "attendanceLedgerService", new AttendanceLedgerService() {
+			@Override
+			public void markDays(List<LedgerMark> marks) {
+				throw new IllegalStateException("ledger unavailable");
+			}
+		});
+		try {
+			assertThrows(IllegalStateException.class, () -> teacherAuthController.updateStudentsAttendance(
+					List.of(update(first.getId(), "P"), update(second.getId(), "A")), session));
+		} finally {
+			ReflectionTestUtils.setField(attendanceService, "attendanceLedgerService", attendanceLedgerService);
+		}
+
+		assertEquals(0, rowsFor(first));
+		assertEquals(0, rowsFor(second));
+	}
+
+	@Test
+	void missingEmptyOrOversizedBodyIsABadRequest() {
+		MockHttpSession session = teacherSession("bulk-d");
+
+		assertEquals(HttpStatus.BAD_REQUEST, teacherAuthController.updateStudentsAttendance(null, session).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, teacherAuthController.updateStudentsAttendance(List.of(), session).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, teacherAuthController.updateStudentsAttendance(
+				Arrays.asList(update(1L, "P"), null), session).getStatusCode());
+
+		List<AttendanceUpdateRequest> tooMany = new ArrayList<>();
+		for (long i = 0; i < 6; i++) tooMany.add(update(i, "P"));
+		ResponseEntity<?> response = teacherAuthController.updateStudentsAttendance(tooMany, session);
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals("At most 5 rows per update", response.getBody());
+	}
+
+	private MockHttpSession teacherSession(String classroomCode) {
+		Teacher teacher = new Teacher();
+		teacher.setTeacherId("T-" + classroomCode);
+		teacher.setEmail(classroomCode + "@teacher.test");
+		teacher.setClassroomCode(classroomCode);
+		teacherRepository.save(teacher);
+
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute("teacherId", teacher.getTeacherId());
+		return session;
+	}
+
+	// otpMinutesAgo: manual updates are only allowed five minutes after the OTP went out
+	private Student student(String classroomCode, String name, int otpMinutesAgo) {
+		Student student = new Student();
+		student.setName(name);
+		student.setRollNumber(classroomCode + "-" + name);
+		student.setEmail(classroomCode + "-" + name + "@student.test");
+		student.setClassroomCode(classroomCode);
+		student.setOtpGeneratedAt(LocalDateTime.now().minusMinutes(otpMinutesAgo));
+		return studentRepository.save(student);
+	}
+
+	private static AttendanceUpdateRequest update(Long studentId, String attendance) {
+		AttendanceUpdateRequest update = new AttendanceUpdateRequest();
+		update.setStudentId(studentId);
+		update.setAttendance(attendance);
+		return update;
+	}
+
+	private int rowsFor(Student student) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance WHERE student_id = ? AND date = ?",
+				Integer.class, student.getId(), LocalDate.now());
+	}
+
+	private Boolean presentToday(Student student) {
+		return jdbcTemplate.queryForObject("SELECT present FROM attendance WHERE student_id = ? AND date = ?",
+				Boolean.class, student.getId(), LocalDate.now());
+	}
+}
@@ -0,0 +1,48 @@
+package com.attendance.smartattendance.controller.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class StatsEndpointAuthTests {
+
+	@Autowired private TeacherAuthController teacherAuthController;
+
+	@Test
+	void attendanceStreamStatsNeedATeacherSession() {
+		assertEquals(HttpStatus.UNAUTHORIZED,
+				teacherAuthController.attendanceStreamStats(new MockHttpSession()).getStatusCode());
+		assertEquals(HttpStatus.OK, teacherAuthController.attendanceStreamStats(teacherSession()).getStatusCode());
+	}
+
+	@Test
+	void otpCacheStatsNeedATeacherSession() {
+		assertEquals(HttpStatus.UNAUTHORIZED, teacherAuthController.otpCacheStats(new MockHttpSession()).getStatusCode());
+		assertEquals(HttpStatus.OK, teacherAuthController.otpCacheStats(teacherSession()).getStatusCode());
+	}
+
+	@Test
+	void outboxStatsNeedATeacherSession() {
+		assertEquals(HttpStatus.UNAUTHORIZED, teacherAuthController.outboxStats(new MockHttpSession()).getStatusCode());
+		assertEquals(HttpStatus.OK, teacherAuthController.outboxStats(teacherSession()).getStatusCode());
+	}
+
+	@Test
+	void mailStatsNeedATeacherSession() {
+		assertEquals(HttpStatus.UNAUTHORIZED, teacherAuthController.mailStats(new MockHttpSession()).getStatusCode());
+		assertEquals(HttpStatus.OK, teacherAuthController.mailStats(teacherSession()).getStatusCode());
+	}
+
+	private static MockHttpSession teacherSession() {
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute("teacherId", "T-stats");
+		return session;
+	}
+}
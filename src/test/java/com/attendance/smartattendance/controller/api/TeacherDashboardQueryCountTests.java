@@ -0,0 +1,80 @@
+package com.attendance.smartattendance.controller.api;
+
+import com.attendance.smartattendance.dto.StudentDashboardDTO;
+import com.attendance.smartattendance.entity.Attendance;
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.entity.Teacher;
+import com.attendance.smartattendance.repository.AttendanceRepository;
+import com.attendance.smartattendance.repository.StudentRepository;
+import com.attendance.smartattendance.repository.TeacherRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "dashboard.cache.ttl-ms=0")
+@ActiveProfiles("h2")
+class TeacherDashboardQueryCountTests {
+
+	@Autowired private TeacherAuthController teacherAuthController;
+	@Autowired private TeacherRepository teacherRepository;
+	@Autowired private StudentRepository studentRepository;
+	@Autowired private AttendanceRepository attendanceRepository;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void allStudentsQueryCountDoesNotGrowWithClassroomSize() {
+		long small = statementsForDashboard("small", 5);
+		long large = statementsForDashboard("large", 200);
+
+		assertEquals(small, large);
+	}
+
+	private long statementsForDashboard(String classroomCode, int size) {
+		Teacher teacher = new Teacher();
+		teacher.setTeacherId("T-" + classroomCode);
+		teacher.setEmail(classroomCode + "@teacher.test");
+		teacher.setClassroomCode(classroomCode);
+		teacherRepository.save(teacher);
+
+		for (int i = 0; i < size; i++) {
+			Student student = new Student();
+			student.setName("Student " + i);
+			student.setRollNumber(classroomCode + "-" + i);
+			student.setEmail(classroomCode + i + "@student.test");
+			student.setClassroomCode(classroomCode);
+			studentRepository.save(student);
+
+			if (i % 2 == 0) {
+				Attendance attendance = new Attendance();
+				attendance.setStudent(student);
+				attendance.setDate(LocalDate.now());
+				attendance.setPresent(true);
+				attendance.setRollNumber(student.getRollNumber());
+				attendanceRepository.save(attendance);
+			}
+		}
+
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute("teacherId", teacher.getTeacherId());
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		List<StudentDashboardDTO> rows = teacherAuthController.getAllStudents(session);
+
+		assertEquals(size, rows.size());
+		assertEquals((size + 1) / 2, rows.stream().filter(StudentDashboardDTO::getPresentToday).count());
+		return statistics.getPrepareStatementCount();
+	}
+
+}
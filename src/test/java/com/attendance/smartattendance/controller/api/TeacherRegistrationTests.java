@@ -0,0 +1,90 @@
+package com.attendance.smartattendance.controller.api;
+
+import com.attendance.smartattendance.entity.Teacher;
+import com.attendance.smartattendance.repository.NotificationOutboxRepository;
+import com.attendance.smartattendance.repository.TeacherRepository;
+import com.attendance.smartattendance.service.PasswordHashingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class TeacherRegistrationTests {
+
+	@Autowired private TeacherAuthController teacherAuthController;
+	@Autowired private PasswordHashingService passwordHashingService;
+	@Autowired private TeacherRepository teacherRepository;
+	@Autowired private NotificationOutboxRepository notificationOutboxRepository;
+
+	// Whether a transaction was open on the request thread at each encode call
+	private final List<Boolean> encodedInTransaction = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void recordHashing() {
+		TeacherAuthController target = AopTestUtils.getTargetObject(teacherAuthController);
+		ReflectionTestUtils.setField(target, "passwordHashingService", new PasswordHashingService() {
+			@Override
+			public String encode(String rawPassword) {
+				encodedInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+				return "{test}" + rawPassword;
+			}
+		});
+	}
+
+	@AfterEach
+	void restoreHashing() {
+		TeacherAuthController target = AopTestUtils.getTargetObject(teacherAuthController);
+		ReflectionTestUtils.setField(target, "passwordHashingService", passwordHashingService);
+	}
+
+	@Test
+	void hashesOutsideTheTransactionAndQueuesTheVerificationEmail() {
+		ResponseEntity<String> response = teacherAuthController.register(teacher("REG-1", "reg1@register.test"));
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(List.of(false), encodedInTransaction);
+		Teacher saved = teacherRepository.findByTeacherId("REG-1").orElseThrow();
+		assertEquals("{test}secret", saved.getPassword());
+		assertTrue(notificationOutboxRepository.existsByDedupeKey("verify-account:" + saved.getVerificationToken()));
+	}
+
+	@Test
+	void duplicateIdOrEmailIsRejectedWithoutHashing() {
+		teacherAuthController.register(teacher("REG-2", "reg2@register.test"));
+		encodedInTransaction.clear();
+
+		ResponseEntity<String> response = teacherAuthController.register(teacher("REG-3", "reg2@register.test"));
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals("Email already in use", response.getBody());
+		assertEquals(List.of(), encodedInTransaction);
+
+		ResponseEntity<String> sameId = teacherAuthController.register(teacher("REG-2", "reg4@register.test"));
+		assertEquals("Teacher ID already exists", sameId.getBody());
+		assertEquals(List.of(), encodedInTransaction);
+	}
+
+	private static Teacher teacher(String teacherId, String email) {
+		Teacher teacher = new Teacher();
+		teacher.setTeacherId(teacherId);
+		teacher.setEmail(email);
+		teacher.setName("Teacher " + teacherId);
+		teacher.setPassword("secret");
+		return teacher;
+	}
+}
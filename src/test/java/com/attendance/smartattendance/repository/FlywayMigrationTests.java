@@ -0,0 +1,49 @@
+package com.attendance.smartattendance.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Upgrades a database that only has the baseline schema, the way an existing ddl-auto=update
+ * database is upgraded: V1 first, some rows, then V2 onwards.
+ */
+class FlywayMigrationTests {
+
+	@Test
+	void baselineDatabaseWithDuplicateAttendanceUpgrades() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:migration-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+				"sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		flyway(dataSource).target("1").load().migrate();
+		jdbcTemplate.update("INSERT INTO students (id, email, roll_number) VALUES (1, 'a@migration.test', 'M1')");
+		// Two rows for the same day, as concurrent submits could leave them, plus a row without a date
+		jdbcTemplate.update("INSERT INTO attendance (id, student_id, date, present, otp_used) VALUES (1, 1, '2026-10-12', false, false)");
+		jdbcTemplate.update("INSERT INTO attendance (id, student_id, date, present, otp_used) VALUES (2, 1, '2026-10-12', true, false)");
+		jdbcTemplate.update("INSERT INTO attendance (id, student_id, date, present, otp_used) VALUES (3, 1, '2026-10-13', true, false)");
+		jdbcTemplate.update("INSERT INTO attendance (id, student_id, date, present, otp_used) VALUES (4, 1, NULL, true, false)");
+
+		flyway(dataSource).load().migrate();
+
+		assertEquals(List.of(2L, 3L, 4L), jdbcTemplate.queryForList("SELECT id FROM attendance ORDER BY id", Long.class));
+		assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+				"INSERT INTO attendance (student_id, date, present, otp_used) VALUES (1, '2026-10-13', false, false)"));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance_ledger", Integer.class));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox", Integer.class));
+	}
+
+	private static FluentConfiguration flyway(DriverManagerDataSource dataSource) {
+		return Flyway.configure().dataSource(dataSource).locations("classpath:db/migration");
+	}
+}
@@ -0,0 +1,212 @@
+package com.attendance.smartattendance.repository;
+
+import com.attendance.smartattendance.entity.NotificationOutbox;
+import com.attendance.smartattendance.entity.Student;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every repository query against the Flyway schema on H2, captures the SQL Hibernate sends,
+ * and EXPLAINs each statement. A plan that reads a whole table fails the test, so a new finder
+ * needs an index in a migration to go with it.
+ */
+@SpringBootTest(properties = {
+		"dashboard.cache.ttl-ms=0",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.attendance.smartattendance.repository.RepositoryIndexUsageTests$CapturedSql"
+})
+@ActiveProfiles("h2")
+class RepositoryIndexUsageTests {
+
+	private static final int ROWS = 300;
+	private static final String CLASSROOM = "ix";
+
+	/** Records each statement Hibernate prepares. */
+	public static class CapturedSql implements StatementInspector {
+		static final Set<String> STATEMENTS = java.util.Collections.synchronizedSet(new LinkedHashSet<>());
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+	}
+
+	@Autowired private AttendanceRepository attendanceRepository;
+	@Autowired private AttendanceLedgerRepository attendanceLedgerRepository;
+	@Autowired private NotificationOutboxRepository notificationOutboxRepository;
+	@Autowired private StudentOtpRepository studentOtpRepository;
+	@Autowired private StudentRepository studentRepository;
+	@Autowired private TeacherRepository teacherRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private TransactionTemplate transactionTemplate;
+
+	@Test
+	void noRepositoryQueryScansAWholeTable() {
+		seed();
+		CapturedSql.STATEMENTS.clear();
+
+		// Writes are rolled back; only the statements matter
+		transactionTemplate.executeWithoutResult(tx -> {
+			runEveryQuery();
+			tx.setRollbackOnly();
+		});
+
+		List<String> statements;
+		synchronized (CapturedSql.STATEMENTS) {
+			statements = new ArrayList<>(CapturedSql.STATEMENTS);
+		}
+		List<String> scans = new ArrayList<>();
+		int explained = 0;
+		for (String sql : statements) {
+			String verb = sql.trim().toLowerCase(Locale.ROOT);
+			if (!verb.startsWith("select") && !verb.startsWith("update") && !verb.startsWith("delete")) continue;
+
+			String plan = explain(sql);
+			explained++;
+			// MIN/MAX over the primary key is answered from the index ends ("direct lookup")
+			if (plan.contains("tableScan") && !plan.contains("direct lookup")) scans.add(plan);
+		}
+
+		assertTrue(explained >= 30, "only " + explained + " statements captured");
+		assertTrue(scans.isEmpty(), "full table scans:\n" + String.join("\n\n", scans));
+	}
+
+	private void runEveryQuery() {
+		LocalDate today = LocalDate.now();
+		LocalDateTime now = LocalDateTime.now();
+		LocalDate weekStart = today.minusWeeks(1);
+		Student student = studentRepository.findByRollNumber(roll(1)).orElseThrow();
+
+		studentRepository.existsByRollNumber(roll(2));
+		studentRepository.existsByEmail(email(2));
+		studentRepository.findByClassroomCode(CLASSROOM);
+		studentRepository.findExistingRollNumbers(List.of(roll(3), roll(4)));
+		studentRepository.findExistingEmails(List.of(email(3), email(4)));
+		studentRepository.findDashboardRows(CLASSROOM, today);
+
+		attendanceRepository.findByStudentAndDate(student, today);
+		attendanceRepository.findByRollNumberAndOtpAndDate(roll(1), "100001", today);
+		attendanceRepository.findByStudentOrderByDateDesc(student);
+		attendanceRepository.existsByStudentAndDate(student, today);
+		attendanceRepository.findByDate(today);
+		attendanceRepository.findMinIdByDate(today);
+		attendanceRepository.findMaxIdByDate(today);
+		attendanceRepository.deleteByDateAndIdBetween(today, 1L, 10L);
+		attendanceRepository.deleteByStudent(student);
+
+		studentOtpRepository.findByStudentAndOtpAndUsedFalse(student, "100001");
+		studentOtpRepository.findByUsedFalseAndExpiryTimeBefore(now.minusDays(1));
+		studentOtpRepository.findTopByStudentAndUsedFalseOrderByExpiryTimeDesc(student);
+		studentOtpRepository.findMinId();
+		studentOtpRepository.findMaxIdExpiredBefore(now.minusDays(7));
+		studentOtpRepository.deleteExpiredByIdBetween(1L, 10L, now.minusDays(7));
+
+		teacherRepository.findByTeacherId("T-" + CLASSROOM + "-1");
+		teacherRepository.findByEmail(CLASSROOM + "1@teacher.test");
+		teacherRepository.findByVerificationToken("verify-1");
+		teacherRepository.findByDeleteToken("delete-1");
+		teacherRepository.existsByEmail(CLASSROOM + "2@teacher.test");
+
+		attendanceLedgerRepository.findByWeekStartAndStudentIdIn(weekStart, List.of(student.getId(), student.getId() + 1));
+		attendanceLedgerRepository.findByWeekStartOrderByRollNumber(weekStart);
+		attendanceLedgerRepository.findByClassroomCodeAndWeekStartBetweenOrderByRollNumberAscWeekStartAsc(
+				CLASSROOM, weekStart.minusWeeks(2), weekStart);
+		attendanceLedgerRepository.findByRollNumberAndWeekStartBetweenOrderByWeekStartAsc(
+				roll(1), weekStart.minusWeeks(2), weekStart);
+
+		notificationOutboxRepository.existsByDedupeKey("ix-1");
+		notificationOutboxRepository.countByStatus(NotificationOutbox.Status.PENDING);
+		notificationOutboxRepository.findDue(now, now.minusMinutes(5), PageRequest.of(0, 50));
+		notificationOutboxRepository.deleteSentBefore(now.minusDays(7));
+		notificationOutboxRepository.deleteExpiredBefore(now, now.minusMinutes(5));
+	}
+
+	private String explain(String sql) {
+		return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+				// The plan is chosen when the statement is prepared; the values are never read
+				int parameters = statement.getParameterMetaData().getParameterCount();
+				for (int i = 1; i <= parameters; i++) statement.setNull(i, Types.NULL);
+				try (ResultSet plan = statement.executeQuery()) {
+					StringBuilder text = new StringBuilder();
+					while (plan.next()) text.append(plan.getString(1));
+					return text.toString();
+				}
+			}
+		});
+	}
+
+	// A few hundred rows per table, so the planner weighs indexes against real table sizes
+	private void seed() {
+		if (studentRepository.existsByRollNumber(roll(0))) return;
+		LocalDate today = LocalDate.now();
+		LocalDateTime now = LocalDateTime.now();
+
+		List<Object[]> students = new ArrayList<>();
+		List<Object[]> teachers = new ArrayList<>();
+		List<Object[]> outbox = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			students.add(new Object[]{"Student " + i, roll(i), email(i), CLASSROOM + (i % 10)});
+			teachers.add(new Object[]{"T-" + CLASSROOM + "-" + i, CLASSROOM + i + "@teacher.test", CLASSROOM + (i % 10),
+					"verify-" + i, "delete-" + i});
+			outbox.add(new Object[]{"ix-" + i, "r" + i + "@outbox.test", NotificationOutbox.Status.values()[i % 4].name(),
+					now.minusMinutes(i), i % 4 == 1 ? now.minusMinutes(i) : null, i % 4 == 2 ? now.minusDays(i % 30) : null});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO students (name, roll_number, email, classroom_code) VALUES (?, ?, ?, ?)", students);
+		jdbcTemplate.batchUpdate("INSERT INTO teachers (teacher_id, email, classroom_code, verification_token, delete_token, verified) "
+				+ "VALUES (?, ?, ?, ?, ?, true)", teachers);
+		jdbcTemplate.batchUpdate("INSERT INTO notification_outbox (dedupe_key, recipient, status, attempts, next_attempt_at, "
+				+ "claimed_at, sent_at, created_at) VALUES (?, ?, ?, 0, ?, ?, ?, CURRENT_TIMESTAMP)", outbox);
+
+		List<Object[]> attendance = new ArrayList<>();
+		List<Object[]> otps = new ArrayList<>();
+		List<Object[]> ledger = new ArrayList<>();
+		List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM students WHERE roll_number LIKE ? ORDER BY id",
+				Long.class, CLASSROOM.toUpperCase() + "-%");
+		for (int i = 0; i < ids.size(); i++) {
+			for (int day = 0; day < 5; day++) {
+				attendance.add(new Object[]{ids.get(i), today.minusDays(day), roll(i)});
+			}
+			otps.add(new Object[]{String.valueOf(100000 + i), roll(i), now.plusMinutes(i % 5), i % 2 == 0, ids.get(i)});
+			otps.add(new Object[]{String.valueOf(200000 + i), roll(i), now.minusDays(1), true, ids.get(i)});
+			for (int week = 0; week < 4; week++) {
+				ledger.add(new Object[]{ids.get(i), roll(i), CLASSROOM + (i % 10), today.minusWeeks(week + 1), 1, 1});
+			}
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO attendance (student_id, date, present, roll_number, otp_used) "
+				+ "VALUES (?, ?, true, ?, false)", attendance);
+		jdbcTemplate.batchUpdate("INSERT INTO student_otp (otp, roll_number, expiry_time, used, student_id) "
+				+ "VALUES (?, ?, ?, ?, ?)", otps);
+		jdbcTemplate.batchUpdate("INSERT INTO attendance_ledger (student_id, roll_number, classroom_code, week_start, "
+				+ "present_mask, recorded_mask) VALUES (?, ?, ?, ?, ?, ?)", ledger);
+	}
+
+	private static String roll(int i) {
+		return CLASSROOM.toUpperCase() + "-" + i;
+	}
+
+	private static String email(int i) {
+		return CLASSROOM + i + "@student.test";
+	}
+}
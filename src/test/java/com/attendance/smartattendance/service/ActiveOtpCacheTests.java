@@ -0,0 +1,39 @@
+package com.attendance.smartattendance.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActiveOtpCacheTests {
+
+	private ActiveOtpCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new ActiveOtpCache();
+		ReflectionTestUtils.setField(cache, "maxEntries", 100);
+	}
+
+	@Test
+	void resubmitAfterVerifyIsAnsweredUsedFromMemory() {
+		cache.put("CS-1", new ActiveOtpCache.Entry(1L, 123456, System.currentTimeMillis() + 60_000, "A", "C1"));
+
+		assertEquals(ActiveOtpCache.Result.VERIFIED, cache.verify("CS-1", "123456").result());
+		assertEquals(ActiveOtpCache.Result.USED, cache.verify("CS-1", "123456").result());
+		assertEquals(ActiveOtpCache.Result.USED, cache.verify("CS-1", "654321").result());
+		assertEquals(1, cache.stats().getSize());
+	}
+
+	@Test
+	void tombstoneIsSweptOnceExpired() throws InterruptedException {
+		cache.put("CS-2", new ActiveOtpCache.Entry(2L, 111111, System.currentTimeMillis() + 50, "B", "C1"));
+		assertEquals(ActiveOtpCache.Result.VERIFIED, cache.verify("CS-2", "111111").result());
+
+		Thread.sleep(100);
+		cache.evictExpired();
+
+		assertEquals(ActiveOtpCache.Result.MISS, cache.verify("CS-2", "111111").result());
+	}
+}
@@ -0,0 +1,135 @@
+package com.attendance.smartattendance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceExportServiceTests {
+
+	// Monday
+	private static final LocalDate WEEK = LocalDate.of(2026, 10, 12);
+
+	@Test
+	void csvQuotesOnlyFieldsThatNeedIt() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AttendanceExportService.CsvWriter writer = new AttendanceExportService.CsvWriter(out);
+
+		writer.week(1, "R1", "Plain Name", WEEK, 0b01, 0b11);
+		writer.week(2, "R,2", "Doe, \"JJ\"", WEEK, 0b100, 0b100);
+		writer.week(3, "R3", "Two\nLines", WEEK, 0, 0b1);
+		writer.week(4, "R4", "Carriage\rReturn", WEEK, 0, 0b1);
+		writer.week(5, "R5", null, WEEK, 0b1, 0b1);
+		writer.week(6, null, "No Roll", WEEK, 0b1, 0b1);
+		writer.finish();
+
+		assertEquals("""
+				rollNumber,name,date,status
+				R1,Plain Name,2026-10-12,P
+				R1,Plain Name,2026-10-13,A
+				"R,2","Doe, ""JJ\"\"",2026-10-14,P
+				R3,"Two
+				Lines",2026-10-12,A
+				R4,"Carriage\rReturn",2026-10-12,A
+				R5,,2026-10-12,P
+				,No Roll,2026-10-12,P
+				""", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void columnarBlocksAndNameRunsRoundTrip() throws IOException {
+		// Enough rows for two full blocks and a partial one, with a student run crossing each boundary;
+		// students 1 and 2 have no roll number and must still be separate runs
+		List<Object[]> written = new ArrayList<>();
+		int total = AttendanceExportService.ColumnarWriter.BLOCK_ROWS * 2 + 100;
+		for (int i = 0; i < total; i++) {
+			int student = i / 1000;
+			int week = i % 1000;
+			written.add(new Object[]{student == 1 || student == 2 ? null : "R" + student,
+					student == 3 ? null : "Student " + student, WEEK.plusWeeks(week), i % 64 & 0b101010, i % 64});
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AttendanceExportService.ColumnarWriter writer = new AttendanceExportService.ColumnarWriter(out, WEEK.plusDays(3));
+		for (int i = 0; i < total; i++) {
+			Object[] row = written.get(i);
+			writer.week(i / 1000, (String) row[0], (String) row[1], (LocalDate) row[2], (int) row[3], (int) row[4]);
+		}
+		writer.finish();
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(AttendanceExportService.ColumnarWriter.MAGIC, in.readInt());
+		assertEquals(AttendanceExportService.ColumnarWriter.VERSION, in.readInt());
+		LocalDate firstWeek = LocalDate.ofEpochDay(in.readLong());
+		assertEquals(WEEK, firstWeek);
+
+		List<Object[]> read = new ArrayList<>();
+		int blocks = 0;
+		int rows;
+		while ((rows = in.readInt()) != 0) {
+			blocks++;
+			int runs = in.readInt();
+			List<String> rollByRow = new ArrayList<>();
+			List<String> nameByRow = new ArrayList<>();
+			for (int run = 0; run < runs; run++) {
+				String roll = in.readUTF();
+				String name = in.readUTF();
+				int length = in.readInt();
+				for (int i = 0; i < length; i++) {
+					rollByRow.add(roll);
+					nameByRow.add(name);
+				}
+			}
+			assertEquals(rows, rollByRow.size());
+			short[] weeks = new short[rows];
+			for (int i = 0; i < rows; i++) weeks[i] = in.readShort();
+			byte[] present = in.readNBytes(rows);
+			byte[] recorded = in.readNBytes(rows);
+			for (int i = 0; i < rows; i++) {
+				read.add(new Object[]{rollByRow.get(i), nameByRow.get(i), firstWeek.plusWeeks(weeks[i]),
+						(int) present[i], (int) recorded[i]});
+			}
+		}
+		assertEquals(-1, in.read());
+
+		assertEquals(3, blocks);
+		assertEquals(total, read.size());
+		for (int i = 0; i < total; i++) {
+			Object[] expected = written.get(i).clone();
+			if (expected[0] == null) expected[0] = "";
+			if (expected[1] == null) expected[1] = "";
+			assertEquals(List.of(expected), List.of(read.get(i)), "row " + i);
+		}
+	}
+
+	@Test
+	void emptyColumnarExportIsHeaderAndEndMarker() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new AttendanceExportService.ColumnarWriter(out, WEEK).finish();
+
+		assertEquals(4 + 4 + 8 + 4, out.size());
+	}
+
+	@Test
+	void rangeMaskClipsTheFirstAndLastWeek() {
+		LocalDate wednesday = WEEK.plusDays(2);
+		LocalDate nextTuesday = WEEK.plusDays(8);
+
+		assertEquals(0b111100, AttendanceExportService.rangeMask(WEEK, wednesday, nextTuesday));
+		assertEquals(0b000011, AttendanceExportService.rangeMask(WEEK.plusWeeks(1), wednesday, nextTuesday));
+		assertEquals(0b111111, AttendanceExportService.rangeMask(WEEK, WEEK.minusDays(1), WEEK.plusDays(6)));
+		// A single day, and a week entirely outside the range
+		assertEquals(0b000100, AttendanceExportService.rangeMask(WEEK, wednesday, wednesday));
+		assertEquals(0, AttendanceExportService.rangeMask(WEEK.plusWeeks(2), wednesday, nextTuesday));
+		// Sunday has no bit
+		assertEquals(0, AttendanceExportService.rangeMask(WEEK, WEEK.plusDays(6), WEEK.plusDays(6)));
+	}
+}
@@ -0,0 +1,101 @@
+package com.attendance.smartattendance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AttendanceMatrixTests {
+
+	@Test
+	void bytesRoundTripKeepsEveryCellAndCounter() {
+		// 130 days spans three words per row, the last one partly used
+		AttendanceMatrix matrix = new AttendanceMatrix(List.of("R1", "R2", "R3"), LocalDate.of(2026, 1, 5), 130);
+		SplittableRandom random = new SplittableRandom(7);
+		for (int student = 0; student < 3; student++) {
+			for (int day = 0; day < 130; day++) {
+				int roll = random.nextInt(3);
+				if (roll > 0) matrix.set(student, day, roll == 2);
+			}
+		}
+
+		AttendanceMatrix copy = AttendanceMatrix.fromBytes(matrix.toBytes());
+
+		assertEquals(matrix.firstDay(), copy.firstDay());
+		assertEquals(130, copy.days());
+		assertEquals(3, copy.students());
+		for (int student = 0; student < 3; student++) {
+			assertEquals(matrix.rollNumber(student), copy.rollNumber(student));
+			assertEquals(student, copy.indexOf(matrix.rollNumber(student)));
+			assertEquals(matrix.presentCount(student), copy.presentCount(student));
+			assertEquals(matrix.recordedCount(student), copy.recordedCount(student));
+			for (int day = 0; day < 130; day++) {
+				assertEquals(matrix.status(student, day), copy.status(student, day));
+			}
+		}
+		for (int day = 0; day < 130; day++) {
+			assertEquals(matrix.presentOnDay(day), copy.presentOnDay(day));
+			assertEquals(matrix.recordedOnDay(day), copy.recordedOnDay(day));
+		}
+	}
+
+	@Test
+	void rejectsBytesThatAreNotAMatrix() {
+		assertThrows(IllegalArgumentException.class, () -> AttendanceMatrix.fromBytes(new byte[16]));
+	}
+
+	@Test
+	void dayCountersFollowOverwritesAndClears() {
+		AttendanceMatrix matrix = new AttendanceMatrix(List.of("R1", "R2"), LocalDate.of(2026, 10, 12), 7);
+
+		matrix.set(0, 2, true);
+		matrix.set(1, 2, true);
+		assertEquals(2, matrix.presentOnDay(2));
+		assertEquals(2, matrix.recordedOnDay(2));
+
+		// P -> A keeps the day recorded, A -> A changes nothing
+		matrix.set(0, 2, false);
+		matrix.set(0, 2, false);
+		assertEquals(1, matrix.presentOnDay(2));
+		assertEquals(2, matrix.recordedOnDay(2));
+		assertEquals(50.0, matrix.dayPercentage(2));
+
+		matrix.clear(1, 2);
+		matrix.clear(1, 2);
+		assertEquals(0, matrix.presentOnDay(2));
+		assertEquals(1, matrix.recordedOnDay(2));
+		assertNull(matrix.status(1, 2));
+		assertEquals("A", matrix.status(0, 2));
+		assertEquals(0.0, matrix.dayPercentage(3));
+	}
+
+	@Test
+	void partialFirstAndLastWeeksOnlyFillDaysInsideTheMatrix() {
+		// Wednesday 14 Oct to Wednesday 21 Oct 2026
+		AttendanceMatrix matrix = new AttendanceMatrix(List.of("R1"), LocalDate.of(2026, 10, 14), 8);
+		int allDays = 0b111111;
+		int mondayToWednesday = 0b000111;
+
+		matrix.applyWeek(0, LocalDate.of(2026, 10, 12), mondayToWednesday, allDays);
+		matrix.applyWeek(0, LocalDate.of(2026, 10, 19), allDays, allDays);
+
+		// First week: Mon/Tue fall before the matrix, Wed is P, Thu-Sat are A
+		assertEquals("P", matrix.status(0, 0));
+		for (int day = 1; day <= 3; day++) assertEquals("A", matrix.status(0, day));
+		// Sunday has no column; second week: Mon-Wed are P, Thu-Sat fall after the matrix
+		assertNull(matrix.status(0, 4));
+		for (int day = 5; day <= 7; day++) assertEquals("P", matrix.status(0, day));
+
+		assertEquals(4, matrix.presentCount(0));
+		assertEquals(7, matrix.recordedCount(0));
+		for (int day = 0; day < 8; day++) {
+			assertEquals(day == 4 ? 0 : 1, matrix.recordedOnDay(day));
+			assertEquals(day == 0 || day >= 5 ? 1 : 0, matrix.presentOnDay(day));
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.ClassroomReportDTO;
+import com.attendance.smartattendance.dto.StudentReportRowDTO;
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AttendanceReportServiceTests {
+
+	// A Monday
+	private static final LocalDate FROM = LocalDate.of(2026, 10, 12);
+
+	@Autowired private AttendanceReportService attendanceReportService;
+	@Autowired private StudentRepository studentRepository;
+	@Autowired private AttendanceLedgerService attendanceLedgerService;
+
+	@Test
+	void invertedOrOversizedRangeIsABadRequest() {
+		ResponseStatusException inverted = assertThrows(ResponseStatusException.class,
+				() -> attendanceReportService.report("report-a", FROM, FROM.minusDays(1)));
+		assertEquals(HttpStatus.BAD_REQUEST, inverted.getStatusCode());
+
+		ResponseStatusException tooLong = assertThrows(ResponseStatusException.class,
+				() -> attendanceReportService.buildMatrix("report-a", FROM, FROM.plusDays(366)));
+		assertEquals(HttpStatus.BAD_REQUEST, tooLong.getStatusCode());
+	}
+
+	@Test
+	void studentsWithoutRollNumberAreListedLast() {
+		student("report-b", "RB-2", "second");
+		student("report-b", null, "no roll");
+		student("report-b", "RB-1", "first");
+
+		ClassroomReportDTO report = attendanceReportService.report("report-b", FROM, FROM.plusDays(6));
+
+		List<String> rollNumbers = new ArrayList<>();
+		for (StudentReportRowDTO row : report.getStudents()) rollNumbers.add(row.getRollNumber());
+		assertEquals(Arrays.asList("RB-1", "RB-2", null), rollNumbers);
+		assertEquals(3, AttendanceMatrix.fromBytes(
+				attendanceReportService.buildMatrix("report-b", FROM, FROM.plusDays(6)).toBytes()).students());
+	}
+
+	@Test
+	void studentsWithoutRollNumberKeepTheirOwnLedgerWeeks() {
+		Student first = student("report-c", null, "first");
+		Student second = student("report-c", null, "second");
+		attendanceLedgerService.markDays(List.of(
+				new AttendanceLedgerService.LedgerMark(first.getId(), null, "report-c", FROM, true),
+				new AttendanceLedgerService.LedgerMark(second.getId(), null, "report-c", FROM, false),
+				new AttendanceLedgerService.LedgerMark(second.getId(), null, "report-c", FROM.plusDays(1), true)));
+
+		ClassroomReportDTO report = attendanceReportService.report("report-c", FROM, FROM.plusDays(6));
+
+		List<String> counts = new ArrayList<>();
+		for (StudentReportRowDTO row : report.getStudents()) {
+			counts.add(row.getName() + " " + row.getDaysPresent() + "/" + row.getDaysRecorded());
+		}
+		assertEquals(List.of("first 1/1", "second 1/2"), counts);
+	}
+
+	private Student student(String classroomCode, String rollNumber, String name) {
+		Student student = new Student();
+		student.setName(name);
+		student.setRollNumber(rollNumber);
+		student.setEmail(classroomCode + "-" + name.replace(' ', '-') + "@report.test");
+		student.setClassroomCode(classroomCode);
+		return studentRepository.save(student);
+	}
+}
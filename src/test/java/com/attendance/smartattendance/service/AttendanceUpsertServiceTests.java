@@ -0,0 +1,133 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.controller.api.AttendanceController;
+import com.attendance.smartattendance.dto.SubmitOtpRequest;
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "dashboard.cache.ttl-ms=0")
+@ActiveProfiles("h2")
+class AttendanceUpsertServiceTests {
+
+	private static final int SUBMITS = 100;
+
+	@Autowired private AttendanceController attendanceController;
+	@Autowired private AttendanceService attendanceService;
+	@Autowired private AttendanceUpsertService attendanceUpsertService;
+	@Autowired private StudentRepository studentRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void parallelOtpSubmitsLeaveOneRow() throws Exception {
+		Student student = student("submit");
+		student.setOtp("123456");
+		student.setOtpExpiry(LocalDateTime.now().plusMinutes(2));
+		studentRepository.save(student);
+
+		SubmitOtpRequest request = new SubmitOtpRequest();
+		request.setRollNumber(student.getRollNumber());
+		request.setOtp("123456");
+
+		List<ResponseEntity<String>> responses = inParallel(() -> attendanceController.submitOtp(request));
+
+		// Submits that read the student after the OTP was cleared are rejected; none may fail otherwise
+		for (ResponseEntity<String> response : responses) {
+			assertTrue(response.getStatusCode().is2xxSuccessful()
+					|| "OTP not generated".equals(response.getBody()), response.toString());
+		}
+		assertEquals(1, rowsFor(student));
+		assertEquals(Boolean.TRUE, presentToday(student));
+	}
+
+	@Test
+	void parallelManualUpdatesLeaveOneRow() throws Exception {
+		Student student = student("manual");
+
+		inParallel(() -> {
+			attendanceService.updateAttendance(student.getId(), "P");
+			return null;
+		});
+
+		assertEquals(1, rowsFor(student));
+		assertEquals(Boolean.TRUE, presentToday(student));
+	}
+
+	@Test
+	void otpIssueKeepsPresenceAndConsumesOnce() throws Exception {
+		Student student = student("consume");
+		LocalDate today = LocalDate.now();
+		attendanceUpsertService.markPresence(student.getId(), student.getRollNumber(), today, false);
+		attendanceUpsertService.issueOtp(student.getId(), student.getRollNumber(), today,
+				"654321", LocalDateTime.now().plusMinutes(2));
+
+		assertEquals(1, rowsFor(student));
+		assertEquals(Boolean.FALSE, presentToday(student));
+
+		List<Boolean> consumed = inParallel(() -> attendanceUpsertService.consumeOtp(student.getId(), today, "654321"));
+
+		assertEquals(1, consumed.stream().filter(Boolean::booleanValue).count());
+		assertEquals(1, rowsFor(student));
+		assertEquals(Boolean.TRUE, presentToday(student));
+	}
+
+	private Student student(String name) {
+		Student student = new Student();
+		student.setName(name);
+		student.setRollNumber("UPSERT-" + name);
+		student.setEmail(name + "@upsert.test");
+		student.setClassroomCode("upsert");
+		return studentRepository.save(student);
+	}
+
+	private int rowsFor(Student student) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance WHERE student_id = ? AND date = ?",
+				Integer.class, student.getId(), LocalDate.now());
+	}
+
+	private Boolean presentToday(Student student) {
+		return jdbcTemplate.queryForObject("SELECT present FROM attendance WHERE student_id = ? AND date = ?",
+				Boolean.class, student.getId(), LocalDate.now());
+	}
+
+	// Runs the task SUBMITS times, all released at once
+	private static <T> List<T> inParallel(Callable<T> task) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(SUBMITS);
+		try {
+			CountDownLatch go = new CountDownLatch(1);
+			List<Future<T>> futures = new ArrayList<>();
+			for (int i = 0; i < SUBMITS; i++) {
+				futures.add(pool.submit(() -> {
+					go.await();
+					return task.call();
+				}));
+			}
+			go.countDown();
+
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) results.add(future.get(60, TimeUnit.SECONDS));
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
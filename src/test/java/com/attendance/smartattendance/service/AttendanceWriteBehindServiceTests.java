@@ -0,0 +1,143 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AttendanceWriteBehindServiceTests {
+
+	// A Monday, so the ledger tracks it
+	private static final LocalDate DAY = LocalDate.of(2026, 10, 12);
+
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private TransactionTemplate transactionTemplate;
+	@Autowired private DashboardCache dashboardCache;
+	@Autowired private AttendanceLedgerService attendanceLedgerService;
+	@Autowired private AttendanceUpsertService attendanceUpsertService;
+	@Autowired private StudentRepository studentRepository;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void restartReplaysJournalExactlyOnce() throws Exception {
+		Student committed = student("replay-committed");
+		Student pending = student("replay-pending");
+		// The first mark reached the database before the crash, the journal was not truncated yet
+		attendanceUpsertService.markPresence(committed.getId(), committed.getRollNumber(), DAY, true);
+
+		Path journal = tempDir.resolve("attendance.journal");
+		Files.writeString(journal,
+				line(committed) + line(pending) + line(pending) + committed.getId() + "\tREPLAY-torn",
+				StandardCharsets.UTF_8);
+
+		AttendanceWriteBehindService afterCrash = writeBehind(journal.toString(), 3, 5);
+		afterCrash.shutdown();
+
+		assertEquals(1, rowsFor(committed));
+		assertEquals(1, rowsFor(pending));
+		assertEquals(Boolean.TRUE, presentOn(pending));
+		assertEquals(1, ledgerRowsFor(pending));
+		assertEquals(0, Files.size(journal));
+
+		// A second restart finds nothing to replay and writes nothing more
+		writeBehind(journal.toString(), 3, 5).shutdown();
+		assertEquals(1, rowsFor(committed));
+		assertEquals(1, rowsFor(pending));
+	}
+
+	@Test
+	void badMarkDoesNotSinkItsBatchAndJournalStillDrains() throws Exception {
+		Student good = student("batch-good");
+		Path journal = tempDir.resolve("batch.journal");
+		AttendanceWriteBehindService service = writeBehind(journal.toString(), 0, 1);
+
+		// No such student: the attendance foreign key rejects this row
+		service.enqueue(new AttendanceWriteBehindService.AttendanceMark(
+				-1L, "REPLAY-ghost", "ghost", "replay", null, DAY));
+		service.enqueue(mark(good));
+		service.shutdown();
+
+		assertEquals(1, rowsFor(good));
+		assertEquals(1.0, registry.get("attendance.writebehind.failed").counter().count());
+		assertEquals(0, Files.size(journal));
+	}
+
+	private AttendanceWriteBehindService writeBehind(String journalFile, int retryAttempts, int maxAttempts)
+			throws Exception {
+		AttendanceWriteBehindService service = new AttendanceWriteBehindService();
+		ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+		ReflectionTestUtils.setField(service, "dashboardCache", dashboardCache);
+		ReflectionTestUtils.setField(service, "attendanceLedgerService", attendanceLedgerService);
+		ReflectionTestUtils.setField(service, "attendanceUpsertService", attendanceUpsertService);
+		ReflectionTestUtils.setField(service, "otpMetrics", new OtpMetrics(registry));
+		ReflectionTestUtils.setField(service, "flushIntervalMs", 10L);
+		ReflectionTestUtils.setField(service, "maxBatch", 500);
+		ReflectionTestUtils.setField(service, "queueCapacity", 100);
+		ReflectionTestUtils.setField(service, "ackMode", "async");
+		ReflectionTestUtils.setField(service, "syncTimeoutMs", 5000L);
+		ReflectionTestUtils.setField(service, "journalFile", journalFile);
+		ReflectionTestUtils.setField(service, "fsync", false);
+		ReflectionTestUtils.setField(service, "retryAttempts", retryAttempts);
+		ReflectionTestUtils.setField(service, "retryBackoffMs", 1L);
+		ReflectionTestUtils.setField(service, "maxAttempts", maxAttempts);
+		service.start();
+		return service;
+	}
+
+	private Student student(String name) {
+		Student student = new Student();
+		student.setName(name);
+		student.setRollNumber("REPLAY-" + name);
+		student.setEmail(name + "@replay.test");
+		student.setClassroomCode("replay");
+		return studentRepository.save(student);
+	}
+
+	private static AttendanceWriteBehindService.AttendanceMark mark(Student student) {
+		return new AttendanceWriteBehindService.AttendanceMark(student.getId(), student.getRollNumber(),
+				student.getName(), student.getClassroomCode(), null, DAY);
+	}
+
+	// Same layout the service writes
+	private static String line(Student student) {
+		return student.getId() + "\t" + student.getRollNumber() + "\t" + student.getName() + "\t\t" + DAY + "\t"
+				+ student.getClassroomCode() + "\n";
+	}
+
+	private int rowsFor(Student student) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance WHERE student_id = ? AND date = ?",
+				Integer.class, student.getId(), DAY);
+	}
+
+	private Boolean presentOn(Student student) {
+		return jdbcTemplate.queryForObject("SELECT present FROM attendance WHERE student_id = ? AND date = ?",
+				Boolean.class, student.getId(), DAY);
+	}
+
+	private int ledgerRowsFor(Student student) {
+		return jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM attendance_ledger WHERE student_id = ? AND present_mask > 0",
+				Integer.class, student.getId());
+	}
+}
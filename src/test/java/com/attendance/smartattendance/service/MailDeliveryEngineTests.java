@@ -0,0 +1,121 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.MailDeliveryStatsDTO;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class MailDeliveryEngineTests {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private MailDeliveryEngine engine;
+
+	@AfterEach
+	void stopEngine() throws InterruptedException {
+		if (engine != null) engine.stop();
+	}
+
+	@Test
+	void deliversOverFewPersistentSmtpConnections() throws Exception {
+		JavaMailSenderImpl sender = new JavaMailSenderImpl();
+		sender.setHost("localhost");
+		sender.setPort(ServerSetupTest.SMTP.getPort());
+		engine = start(sender, 2, 0, 3);
+
+		awaitAll(submit(60));
+
+		assertEquals(60, greenMail.getReceivedMessages().length);
+		MailDeliveryStatsDTO stats = engine.stats();
+		assertEquals(60, stats.getDelivered());
+		assertEquals(0, stats.getFailed());
+		assertTrue(stats.getConnectionsOpened() <= 2, "opened " + stats.getConnectionsOpened() + " connections");
+	}
+
+	@Test
+	void retriesTransientFailures() throws Exception {
+		JavaMailSender sender = mock(JavaMailSender.class);
+		doThrow(new MailSendException("421 try again later"))
+				.doThrow(new MailSendException("421 try again later"))
+				.doNothing()
+				.when(sender).send(any(SimpleMailMessage.class));
+		engine = start(sender, 1, 0, 3);
+
+		awaitAll(submit(1));
+
+		verify(sender, times(3)).send(any(SimpleMailMessage.class));
+		assertEquals(2, engine.stats().getRetries());
+		assertEquals(1, engine.stats().getDelivered());
+	}
+
+	@Test
+	void failsAfterMaxAttempts() {
+		JavaMailSender sender = mock(JavaMailSender.class);
+		doThrow(new MailSendException("550 mailbox unavailable")).when(sender).send(any(SimpleMailMessage.class));
+		engine = start(sender, 1, 0, 2);
+
+		CompletableFuture<Void> send = submit(1).get(0);
+
+		assertThrows(ExecutionException.class, () -> send.get(10, TimeUnit.SECONDS));
+		assertEquals(1, engine.stats().getFailed());
+		assertEquals(1, engine.stats().getRetries());
+	}
+
+	@Test
+	void rateLimitSpreadsDeliveries() throws Exception {
+		JavaMailSender sender = mock(JavaMailSender.class);
+		doNothing().when(sender).send(any(SimpleMailMessage.class));
+		engine = start(sender, 4, 20, 1);
+
+		long start = System.nanoTime();
+		awaitAll(submit(30));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// A full bucket covers the first 20; the other 10 need half a second of refill at 20/s
+		assertTrue(elapsedMs >= 400, "30 messages at 20/s took only " + elapsedMs + " ms");
+	}
+
+	private MailDeliveryEngine start(JavaMailSender sender, int connections, double ratePerSecond, int maxAttempts) {
+		MailDeliveryEngine started = new MailDeliveryEngine(sender, new SimpleMeterRegistry(),
+				connections, 1_000, ratePerSecond, maxAttempts, 10, 1_000, 30_000);
+		started.start();
+		return started;
+	}
+
+	private List<CompletableFuture<Void>> submit(int count) {
+		List<CompletableFuture<Void>> sends = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			sends.add(engine.submit("student" + i + "@test.local", "Class Attendance OTP", "Your OTP is: " + (100000 + i)));
+		}
+		return sends;
+	}
+
+	private static void awaitAll(List<CompletableFuture<Void>> sends) throws Exception {
+		CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+	}
+
+}
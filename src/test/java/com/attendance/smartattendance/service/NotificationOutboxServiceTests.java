@@ -0,0 +1,179 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.entity.NotificationOutbox;
+import com.attendance.smartattendance.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The scheduled dispatcher is slowed right down so only the explicit dispatch() calls send
+@SpringBootTest(properties = {"outbox.poll-interval-ms=3600000", "outbox.expiry-sweep-ms=3600000",
+		"outbox.max-attempts=2", "outbox.retry-base-ms=0", "outbox.lease-ms=60000"})
+@ActiveProfiles("h2")
+class NotificationOutboxServiceTests {
+
+	@Autowired private NotificationOutboxService notificationOutboxService;
+	@Autowired private NotificationOutboxRepository notificationOutboxRepository;
+	@Autowired private EmailService emailService;
+	@Autowired private TransactionTemplate transactionTemplate;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	// @dispatch.test recipients handed to the mail stub (the database is shared); failing@ sends fail
+	private final List<String> sent = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void stubMail() {
+		// The service is a transactional proxy; the stub goes into the bean behind it
+		NotificationOutboxService target = AopTestUtils.getTargetObject(notificationOutboxService);
+		ReflectionTestUtils.setField(target, "emailService", new EmailService(null, null) {
+			@Override
+			public CompletableFuture<Void> sendMailAsync(String to, String subject, String text) {
+				if (to.endsWith("@dispatch.test")) sent.add(to);
+				return to.startsWith("failing@")
+						? CompletableFuture.failedFuture(new IllegalStateException("mailbox unavailable"))
+						: CompletableFuture.completedFuture(null);
+			}
+		});
+	}
+
+	@AfterEach
+	void restoreMail() {
+		NotificationOutboxService target = AopTestUtils.getTargetObject(notificationOutboxService);
+		ReflectionTestUtils.setField(target, "emailService", emailService);
+	}
+
+	@Test
+	void enqueueCommitsAndRollsBackWithTheCallersTransaction() {
+		transactionTemplate.executeWithoutResult(tx ->
+				notificationOutboxService.enqueue("tx-commit", "a@enqueue.test", "s", "b"));
+		transactionTemplate.executeWithoutResult(tx -> {
+			notificationOutboxService.enqueue("tx-rollback", "a@enqueue.test", "s", "b");
+			tx.setRollbackOnly();
+		});
+
+		assertTrue(notificationOutboxRepository.existsByDedupeKey("tx-commit"));
+		assertFalse(notificationOutboxRepository.existsByDedupeKey("tx-rollback"));
+		assertThrows(IllegalTransactionStateException.class,
+				() -> notificationOutboxService.enqueue("no-tx", "a@enqueue.test", "s", "b"));
+	}
+
+	@Test
+	void sameDedupeKeyIsQueuedAndSentOnce() {
+		transactionTemplate.executeWithoutResult(tx -> {
+			notificationOutboxService.enqueue("dedupe", "d@dispatch.test", "s", "first");
+			notificationOutboxService.enqueue("dedupe", "d@dispatch.test", "s", "second");
+		});
+		transactionTemplate.executeWithoutResult(tx ->
+				notificationOutboxService.enqueue("dedupe", "d@dispatch.test", "s", "third"));
+
+		notificationOutboxService.dispatch();
+
+		assertEquals(List.of("d@dispatch.test"), sent);
+		assertEquals("first", row("dedupe").getBody());
+		assertEquals(NotificationOutbox.Status.SENT, row("dedupe").getStatus());
+	}
+
+	@Test
+	void concurrentEnqueueOfTheSameKeyIsANoOp() {
+		CompletableFuture<Void> second = transactionTemplate.execute(tx -> {
+			notificationOutboxService.enqueue("race", "race@enqueue.test", "s", "first");
+			// The other transaction inserts the same key while this one still holds it uncommitted
+			CompletableFuture<Void> other = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(t ->
+					notificationOutboxService.enqueue("race", "race@enqueue.test", "s", "second")));
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return other;
+		});
+
+		second.join();
+		assertEquals("first", row("race").getBody());
+	}
+
+	@Test
+	void staleClaimIsSentAgainAfterRestart() {
+		transactionTemplate.executeWithoutResult(tx -> {
+			notificationOutboxService.enqueue("stale", "stale@dispatch.test", "s", "b");
+			notificationOutboxService.enqueue("leased", "leased@dispatch.test", "s", "b");
+		});
+		// A dispatcher died mid-send: one claim is past the lease, the other is still held
+		claim("stale", LocalDateTime.now().minusMinutes(5));
+		claim("leased", LocalDateTime.now().minusSeconds(5));
+
+		notificationOutboxService.dispatch();
+
+		assertEquals(List.of("stale@dispatch.test"), sent);
+		assertEquals(NotificationOutbox.Status.SENT, row("stale").getStatus());
+		assertEquals(2, row("stale").getAttempts());
+		assertEquals(NotificationOutbox.Status.SENDING, row("leased").getStatus());
+	}
+
+	@Test
+	void failedSendIsRetriedThenMarkedFailed() {
+		transactionTemplate.executeWithoutResult(tx ->
+				notificationOutboxService.enqueue("retry", "failing@dispatch.test", "s", "b"));
+
+		notificationOutboxService.dispatch();
+		NotificationOutbox afterFirst = row("retry");
+		assertEquals(NotificationOutbox.Status.PENDING, afterFirst.getStatus());
+		assertEquals(1, afterFirst.getAttempts());
+		assertEquals("mailbox unavailable", afterFirst.getLastError());
+
+		notificationOutboxService.dispatch();
+		NotificationOutbox afterSecond = row("retry");
+		assertEquals(NotificationOutbox.Status.FAILED, afterSecond.getStatus());
+		assertEquals(2, afterSecond.getAttempts());
+
+		// Given up: later polls leave it alone
+		notificationOutboxService.dispatch();
+		assertEquals(2, sent.size());
+	}
+
+	@Test
+	void expiredRowIsNeitherSentNorKept() {
+		transactionTemplate.executeWithoutResult(tx -> {
+			notificationOutboxService.enqueue("expired", "e@dispatch.test", "s", "b", LocalDateTime.now().minusSeconds(1));
+			notificationOutboxService.enqueue("valid", "v@dispatch.test", "s", "b", LocalDateTime.now().plusMinutes(2));
+		});
+
+		notificationOutboxService.dispatch();
+		notificationOutboxService.purgeExpired();
+
+		assertEquals(List.of("v@dispatch.test"), sent);
+		assertFalse(notificationOutboxRepository.existsByDedupeKey("expired"));
+		assertNotNull(row("valid").getSentAt());
+	}
+
+	private void claim(String dedupeKey, LocalDateTime claimedAt) {
+		jdbcTemplate.update("UPDATE notification_outbox SET status = 'SENDING', attempts = 1, claimed_at = ? "
+				+ "WHERE dedupe_key = ?", claimedAt, dedupeKey);
+	}
+
+	private NotificationOutbox row(String dedupeKey) {
+		return notificationOutboxRepository.findAll().stream()
+				.filter(row -> dedupeKey.equals(row.getDedupeKey()))
+				.findFirst()
+				.orElseThrow();
+	}
+}
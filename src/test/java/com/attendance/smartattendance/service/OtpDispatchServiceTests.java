@@ -0,0 +1,68 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class OtpDispatchServiceTests {
+
+	@Autowired private OtpDispatchService otpDispatchService;
+	@Autowired private StudentRepository studentRepository;
+
+	@Test
+	void interruptedDispatchTakesItsUnsentMailsOffThePendingGauge() throws Exception {
+		List<Student> students = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Student student = new Student();
+			student.setName("dispatch " + i);
+			student.setRollNumber("DSP-" + i);
+			student.setEmail("dsp-" + i + "@dispatch.test");
+			student.setClassroomCode("dispatch-a");
+			students.add(studentRepository.save(student));
+		}
+
+		OtpDispatchService target = AopTestUtils.getTargetObject(otpDispatchService);
+		Object executor = ReflectionTestUtils.getField(target, "executor");
+		Object permits = ReflectionTestUtils.getField(target, "mailPermits");
+		AtomicInteger pending = (AtomicInteger) ReflectionTestUtils.getField(target, "pendingMails");
+		ExecutorService blocked = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			// No mail slots: the job persists the chunk and then waits for a permit until interrupted
+			ReflectionTestUtils.setField(target, "executor", blocked);
+			ReflectionTestUtils.setField(target, "mailPermits", new Semaphore(0));
+			String jobId = otpDispatchService.start(students, LocalDateTime.now(), "dispatch-a").getJobId();
+
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (otpDispatchService.status(jobId).orElseThrow().getPersisted() < 3 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			blocked.shutdownNow();
+			assertTrue(blocked.awaitTermination(5, TimeUnit.SECONDS));
+
+			assertEquals("FAILED", otpDispatchService.status(jobId).orElseThrow().getState());
+			assertEquals(0, pending.get());
+		} finally {
+			ReflectionTestUtils.setField(target, "executor", executor);
+			ReflectionTestUtils.setField(target, "mailPermits", permits);
+		}
+	}
+}
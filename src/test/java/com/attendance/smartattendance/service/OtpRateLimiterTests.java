@@ -0,0 +1,107 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OtpRateLimiterTests {
+
+	private SimpleMeterRegistry registry;
+	private OtpRateLimiter limiter;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		limiter = new OtpRateLimiter();
+		ReflectionTestUtils.setField(limiter, "otpMetrics", new OtpMetrics(registry));
+		ReflectionTestUtils.setField(limiter, "enabled", true);
+		ReflectionTestUtils.setField(limiter, "windowSeconds", 60L);
+		ReflectionTestUtils.setField(limiter, "maxKeys", 100);
+		ReflectionTestUtils.setField(limiter, "requestOtpPerIp", 5);
+		ReflectionTestUtils.setField(limiter, "requestOtpPerStudent", 3);
+		ReflectionTestUtils.setField(limiter, "submitOtpPerIp", 1000);
+		ReflectionTestUtils.setField(limiter, "submitOtpPerStudent", 10);
+		ReflectionTestUtils.setField(limiter, "teacherVerifyPerIp", 30);
+		ReflectionTestUtils.setField(limiter, "teacherVerifyPerEmail", 5);
+		limiter.init();
+	}
+
+	@Test
+	void rejectsAStudentOverTheLimitWithoutAffectingOthers() {
+		for (int i = 0; i < 3; i++) limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, "10.0.0.1", "CS-1");
+
+		TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+				() -> limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, "10.0.0.2", "cs-1 "));
+		assertTrue(rejected.getRetryAfterSeconds() >= 1 && rejected.getRetryAfterSeconds() <= 60);
+
+		limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, "10.0.0.2", "CS-2");
+		limiter.check(OtpRateLimiter.Endpoint.SUBMIT_OTP, "10.0.0.1", "CS-1");
+		assertEquals(1.0, registry.get("otp.rate_limit.rejected")
+				.tag("endpoint", "request-otp").tag("key", "rollNumber").counter().count());
+	}
+
+	@Test
+	void rejectsAnAddressOverTheLimitAcrossStudents() {
+		for (int i = 0; i < 5; i++) limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, "10.0.0.9", "R-" + i);
+
+		assertThrows(TooManyRequestsException.class,
+				() -> limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, "10.0.0.9", "R-new"));
+		assertEquals(1.0, registry.get("otp.rate_limit.rejected")
+				.tag("endpoint", "request-otp").tag("key", "ip").counter().count());
+	}
+
+	@Test
+	void previousWindowStillCountsWhileItOverlaps() {
+		OtpRateLimiter.Window window = new OtpRateLimiter.Window();
+		long windowMillis = 60_000;
+		long start = 6_000_000; // a window boundary
+		for (int i = 0; i < 10; i++) assertEquals(0, window.tryAcquire(start + 50_000, windowMillis, 10));
+
+		// 15 s into the next window three quarters of the previous 10 still count: 7.5 + 2 + 1 > 10
+		long next = start + windowMillis + 15_000;
+		assertEquals(0, window.tryAcquire(next, windowMillis, 10));
+		assertEquals(0, window.tryAcquire(next, windowMillis, 10));
+		assertEquals(45_000, window.tryAcquire(next, windowMillis, 10));
+
+		// Two windows later nothing is left
+		assertEquals(0, window.tryAcquire(start + 3 * windowMillis, windowMillis, 10));
+	}
+
+	@Test
+	void staysWithinMaxKeysUnderAFloodOfAddresses() {
+		for (int i = 0; i < 1_000; i++) {
+			try {
+				limiter.check(OtpRateLimiter.Endpoint.SUBMIT_OTP, "10.1." + (i / 256) + "." + (i % 256), null);
+			} catch (TooManyRequestsException ignored) {
+				// untracked addresses share the overflow buckets
+			}
+		}
+		assertTrue(limiter.trackedKeys() <= 100 + OtpRateLimiter.OVERFLOW_BUCKETS, "tracked " + limiter.trackedKeys());
+	}
+
+	@Test
+	void busyKeyInTheOverflowOnlyThrottlesItsOwnBucket() {
+		for (int i = 0; i < 100; i++) limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, "10.2.0." + i, null);
+		assertEquals(100, limiter.trackedKeys());
+
+		// The map is full: this address is counted in an overflow bucket and runs out there
+		String busy = "10.9.9.9";
+		for (int i = 0; i < 5; i++) limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, busy, null);
+		assertThrows(TooManyRequestsException.class,
+				() -> limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, busy, null));
+
+		// Another untracked address in a different bucket is unaffected
+		String other = null;
+		for (int i = 0; other == null; i++) {
+			String candidate = "10.3.0." + i;
+			if (OtpRateLimiter.overflowBucket(candidate) != OtpRateLimiter.overflowBucket(busy)) other = candidate;
+		}
+		limiter.check(OtpRateLimiter.Endpoint.REQUEST_OTP, other, null);
+	}
+}
@@ -0,0 +1,174 @@
+package com.attendance.smartattendance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers OtpSessionRegistry from many threads released at the same instant. Each scenario is
+ * repeated so that unlucky interleavings get a chance to show up.
+ */
+class OtpSessionRegistryStressTests {
+
+	private static final int THREADS = 16;
+	private static final int ROUNDS = 200;
+	private static final long VALID_MILLIS = 120_000;
+
+	@Test
+	void oneOtpVerifiesExactlyOnce() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				OtpSessionRegistry registry = new OtpSessionRegistry();
+				registry.issueStudentOtp("R1", "123456", VALID_MILLIS);
+
+				AtomicInteger verified = new AtomicInteger();
+				AtomicInteger used = new AtomicInteger();
+				runTogether(pool, () -> {
+					switch (registry.verifyStudentOtp("R1", "123456")) {
+						case VERIFIED -> verified.incrementAndGet();
+						case USED, NOT_FOUND -> used.incrementAndGet();
+						default -> { }
+					}
+				});
+
+				assertEquals(1, verified.get(), "round " + round);
+				assertEquals(THREADS - 1, used.get(), "round " + round);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void concurrentIssuesNeverOverwriteAnotherStudent() throws Exception {
+		int students = 1_000;
+		OtpSessionRegistry registry = new OtpSessionRegistry();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			AtomicInteger next = new AtomicInteger();
+			runTogether(pool, () -> {
+				for (int i = next.getAndIncrement(); i < students; i = next.getAndIncrement()) {
+					registry.issueStudentOtp(roll(i), otp(i), VALID_MILLIS);
+				}
+			});
+
+			for (int i = 0; i < students; i++) {
+				assertTrue(registry.studentRemainingMillis(roll(i)) > 0, roll(i));
+			}
+
+			next.set(0);
+			AtomicInteger verified = new AtomicInteger();
+			runTogether(pool, () -> {
+				for (int i = next.getAndIncrement(); i < students; i = next.getAndIncrement()) {
+					if (registry.verifyStudentOtp(roll(i), otp(i)) == OtpSessionRegistry.Verification.VERIFIED) {
+						verified.incrementAndGet();
+					}
+				}
+			});
+			assertEquals(students, verified.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void wrongOtpDoesNotConsumeTheSession() throws Exception {
+		OtpSessionRegistry registry = new OtpSessionRegistry();
+		registry.issueStudentOtp("R1", "123456", VALID_MILLIS);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			AtomicInteger invalid = new AtomicInteger();
+			runTogether(pool, () -> {
+				if (registry.verifyStudentOtp("R1", "000000") == OtpSessionRegistry.Verification.INVALID) {
+					invalid.incrementAndGet();
+				}
+			});
+			assertEquals(THREADS, invalid.get());
+			assertEquals(OtpSessionRegistry.Verification.VERIFIED, registry.verifyStudentOtp("R1", "123456"));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void concurrentClassroomWindowsAreAllOpen() throws Exception {
+		int classrooms = 500;
+		OtpSessionRegistry registry = new OtpSessionRegistry();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			AtomicInteger next = new AtomicInteger();
+			runTogether(pool, () -> {
+				for (int i = next.getAndIncrement(); i < classrooms; i = next.getAndIncrement()) {
+					registry.openClassroom("C" + i, VALID_MILLIS);
+				}
+			});
+			assertEquals(classrooms, registry.activeClassrooms());
+			for (int i = 0; i < classrooms; i++) {
+				assertTrue(registry.classroomRemainingMillis("C" + i) > 0);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void expiredSessionNeverVerifies() throws Exception {
+		OtpSessionRegistry registry = new OtpSessionRegistry();
+		registry.issueStudentOtp("R1", "123456", 0);
+		registry.openClassroom("C1", 0);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			AtomicInteger verified = new AtomicInteger();
+			runTogether(pool, () -> {
+				if (registry.verifyStudentOtp("R1", "123456") == OtpSessionRegistry.Verification.VERIFIED) {
+					verified.incrementAndGet();
+				}
+			});
+			assertEquals(0, verified.get());
+			assertEquals(0, registry.classroomRemainingMillis("C1"));
+			assertEquals(0, registry.activeClassrooms());
+
+			registry.evictExpired();
+			assertEquals(OtpSessionRegistry.Verification.NOT_FOUND, registry.verifyStudentOtp("R1", "123456"));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// Starts the task on every thread at once and waits for all of them
+	private static void runTogether(ExecutorService pool, Runnable task) throws Exception {
+		CountDownLatch ready = new CountDownLatch(THREADS);
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(pool.submit(() -> {
+				ready.countDown();
+				go.await();
+				task.run();
+				return null;
+			}));
+		}
+		ready.await();
+		go.countDown();
+		for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+	}
+
+	private static String roll(int i) {
+		return "R" + i;
+	}
+
+	private static String otp(int i) {
+		return String.format("%06d", i);
+	}
+}
@@ -0,0 +1,106 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTests {
+
+	private SimpleMeterRegistry registry;
+	private OtpMetrics otpMetrics;
+	private PasswordHashingService hashing;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		otpMetrics = new OtpMetrics(registry);
+		hashing = hashingService(new BCryptPasswordEncoder(5), 2, 200);
+	}
+
+	@AfterEach
+	void tearDown() {
+		hashing.shutdown();
+	}
+
+	@Test
+	void hashesOnThePoolAndFlagsWeakerHashesForUpgrade() {
+		String hash = hashing.encode("secret");
+
+		assertTrue(hash.startsWith("$2a$05$"));
+		assertTrue(hashing.matches("secret", hash));
+		assertFalse(hashing.matches("wrong", hash));
+		assertFalse(hashing.needsUpgrade(hash));
+		assertTrue(hashing.needsUpgrade(new BCryptPasswordEncoder(4).encode("secret")));
+		assertEquals(3, registry.get("auth.hashing.compute").timer().count());
+	}
+
+	@Test
+	void refusesWorkBeyondTheQueue() {
+		// One worker, one queue slot and a slow hash: of six concurrent callers some must be turned away
+		PasswordHashingService small = hashingService(new BCryptPasswordEncoder(12), 1, 1);
+		ExecutorService callers = Executors.newFixedThreadPool(6);
+		try {
+			List<CompletableFuture<String>> calls = new ArrayList<>();
+			for (int i = 0; i < 6; i++) calls.add(CompletableFuture.supplyAsync(() -> small.encode("secret"), callers));
+
+			long refused = calls.stream().filter(call -> {
+				try {
+					call.join();
+					return false;
+				} catch (CompletionException e) {
+					return e.getCause() instanceof TooManyRequestsException;
+				}
+			}).count();
+			assertTrue(refused >= 1, "refused " + refused);
+			assertEquals(refused, (long) registry.get("auth.hashing.rejected").counter().count());
+		} finally {
+			callers.shutdownNow();
+			small.shutdown();
+		}
+	}
+
+	@Test
+	void failureCacheRemembersRejectedPasswordsUntilInvalidated() {
+		LoginFailureCache cache = new LoginFailureCache();
+		ReflectionTestUtils.setField(cache, "otpMetrics", otpMetrics);
+		ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+		ReflectionTestUtils.setField(cache, "maxTeachers", 10);
+		ReflectionTestUtils.setField(cache, "maxPerTeacher", 2);
+		cache.init();
+
+		cache.recordFailure("T1", "guess-1");
+		assertTrue(cache.isKnownFailure("T1", "guess-1"));
+		assertFalse(cache.isKnownFailure("T1", "guess-2"));
+		assertFalse(cache.isKnownFailure("T2", "guess-1"));
+
+		cache.invalidate("T1");
+		assertFalse(cache.isKnownFailure("T1", "guess-1"));
+		assertEquals(1.0, registry.get("auth.login.failure_cache.hits").counter().count());
+	}
+
+	private PasswordHashingService hashingService(BCryptPasswordEncoder encoder, int threads, int queueCapacity) {
+		PasswordHashingService service = new PasswordHashingService();
+		ReflectionTestUtils.setField(service, "passwordEncoder", encoder);
+		ReflectionTestUtils.setField(service, "otpMetrics", otpMetrics);
+		ReflectionTestUtils.setField(service, "threads", threads);
+		ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+		ReflectionTestUtils.setField(service, "timeoutMs", 60_000L);
+		service.init();
+		return service;
+	}
+}
@@ -0,0 +1,193 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.StudentImportReportDTO;
+import com.attendance.smartattendance.entity.Student;
+import com.attendance.smartattendance.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "student.import.chunk-size=100")
+@ActiveProfiles("h2")
+class StudentImportServiceTests {
+
+	@Autowired private StudentImportService studentImportService;
+	@Autowired private StudentRepository studentRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void csvHeaderInAnyOrderWithQuotedFields() throws IOException {
+		StudentImportReportDTO report = importCsv("imp-csv", """
+				Email,Roll No,Name
+				"csv1@import.test",IMP-CSV-1,"Doe, Jane"
+				csv2@import.test,IMP-CSV-2,"Say ""hi""\"
+
+				csv3@import.test,,No Roll
+				not-an-email,IMP-CSV-4,Bad Email
+				"csv5@import.test,IMP-CSV-5,Unterminated
+				""");
+
+		assertNull(report.getError());
+		assertEquals(5, report.getRowsRead());
+		assertEquals(2, report.getImported());
+		assertEquals(3, report.getInvalid());
+		assertEquals("Doe, Jane", studentRepository.findByRollNumber("IMP-CSV-1").orElseThrow().getName());
+		assertEquals("Say \"hi\"", studentRepository.findByRollNumber("IMP-CSV-2").orElseThrow().getName());
+		assertEquals(List.of("line 5: missing roll number", "line 6: invalid email", "line 7: unterminated quote"),
+				report.getErrors());
+	}
+
+	@Test
+	void ndjsonRows() throws IOException {
+		StudentImportReportDTO report = studentImportService.importStudents("imp-json", stream("""
+				{"name": "Json One", "rollNumber": "IMP-JSON-1", "email": "json1@import.test"}
+				[1, 2]
+				{"rollNumber": "IMP-JSON-3", "email": "json3@import.test"}
+				"""), StudentImportService.Format.NDJSON);
+
+		assertEquals(3, report.getRowsRead());
+		assertEquals(2, report.getImported());
+		assertEquals(List.of("line 2: not a JSON object"), report.getErrors());
+		assertEquals("imp-json", studentRepository.findByRollNumber("IMP-JSON-3").orElseThrow().getClassroomCode());
+	}
+
+	@Test
+	void headerWithoutRequiredColumnsRejectsTheUpload() throws IOException {
+		StudentImportReportDTO report = importCsv("imp-header", """
+				name,phone
+				Someone,12345
+				""");
+
+		assertEquals("CSV header must name the rollNumber and email columns", report.getError());
+		assertEquals(0, report.getRowsRead());
+		assertEquals(0, report.getImported());
+	}
+
+	@Test
+	void existingAndRepeatedRowsAreSkippedAndCounted() throws IOException {
+		saveStudent("IMP-DUP-1", "dup1@import.test");
+		saveStudent("IMP-DUP-2", "dup2@import.test");
+
+		StudentImportReportDTO report = importCsv("imp-dup", """
+				rollNumber,email,name
+				IMP-DUP-1,fresh1@import.test,Roll Taken
+				IMP-DUP-9,dup2@import.test,Email Taken
+				IMP-DUP-3,dup3@import.test,New
+				IMP-DUP-3,other@import.test,Repeat Roll
+				IMP-DUP-4,Dup3@import.test,Repeat Email
+				""");
+
+		assertEquals(5, report.getRowsRead());
+		assertEquals(1, report.getImported());
+		assertEquals(1, report.getRollNumberTaken());
+		assertEquals(1, report.getEmailTaken());
+		assertEquals(2, report.getDuplicateInFile());
+		assertEquals(0, report.getConflicts());
+	}
+
+	@Test
+	void chunkThatHitsAConcurrentInsertFallsBackToSingleRows() throws IOException {
+		// Another request added this student after the chunk was checked
+		saveStudent("IMP-RACE-2", "race2@import.test");
+
+		StudentImportService target = AopTestUtils.getTargetObject(studentImportService);
+		ReflectionTestUtils.setField(target, "studentRepository", repositorySeeingNothingTaken());
+		StudentImportReportDTO report;
+		try {
+			report = importCsv("imp-race", """
+					rollNumber,email
+					IMP-RACE-1,race1@import.test
+					IMP-RACE-2,race2-new@import.test
+					IMP-RACE-3,race3@import.test
+					""");
+		} finally {
+			ReflectionTestUtils.setField(target, "studentRepository", studentRepository);
+		}
+
+		assertEquals(2, report.getImported());
+		assertEquals(1, report.getConflicts());
+		assertTrue(report.getErrors().get(0).startsWith("line 3: "), report.getErrors().toString());
+		assertTrue(studentRepository.existsByRollNumber("IMP-RACE-1"));
+		assertTrue(studentRepository.existsByRollNumber("IMP-RACE-3"));
+	}
+
+	@Test
+	void rowsAreWrittenWhileTheBodyIsStillBeingRead() throws IOException {
+		int rows = 5000;
+		long[] committedWhenHalfRead = {-1};
+		InputStream body = new InputStream() {
+			private byte[] current = "rollNumber,email\n".getBytes(StandardCharsets.UTF_8);
+			private int position;
+			private int row;
+
+			@Override
+			public int read() {
+				if (position == current.length) {
+					if (row == rows) return -1;
+					if (row == rows / 2) {
+						committedWhenHalfRead[0] = jdbcTemplate.queryForObject(
+								"SELECT COUNT(*) FROM students WHERE classroom_code = 'imp-stream'", Long.class);
+					}
+					current = ("IMP-STREAM-" + row + ",stream" + row + "@import.test\n").getBytes(StandardCharsets.UTF_8);
+					position = 0;
+					row++;
+				}
+				return current[position++];
+			}
+		};
+
+		StudentImportReportDTO report =
+				studentImportService.importStudents("imp-stream", body, StudentImportService.Format.CSV);
+
+		assertEquals(rows, report.getImported());
+		assertEquals(rows / 100, report.getChunks());
+		// Only the current chunk and the reader's buffers (a few hundred rows) are held in memory,
+		// so most of the first half is already in the table while the second half is being generated
+		assertTrue(committedWhenHalfRead[0] >= rows / 2 - 1000, "committed at half-way: " + committedWhenHalfRead[0]);
+	}
+
+	private StudentImportReportDTO importCsv(String classroomCode, String csv) throws IOException {
+		return studentImportService.importStudents(classroomCode, stream(csv), StudentImportService.Format.CSV);
+	}
+
+	private static InputStream stream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void saveStudent(String rollNumber, String email) {
+		Student student = new Student();
+		student.setRollNumber(rollNumber);
+		student.setEmail(email);
+		student.setClassroomCode("imp-existing");
+		studentRepository.save(student);
+	}
+
+	// The pre-insert checks find nothing, as if the conflicting row arrived between check and insert
+	private StudentRepository repositorySeeingNothingTaken() {
+		return (StudentRepository) Proxy.newProxyInstance(StudentRepository.class.getClassLoader(),
+				new Class<?>[]{StudentRepository.class}, (proxy, method, args) -> {
+					if (method.getName().startsWith("findExisting")) return List.of();
+					try {
+						return method.invoke(studentRepository, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+}
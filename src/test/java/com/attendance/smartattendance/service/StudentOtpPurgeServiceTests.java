@@ -0,0 +1,84 @@
+package com.attendance.smartattendance.service;
+
+import com.attendance.smartattendance.dto.MaintenanceJobReportDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"otp.purge.chunk-size=7", "otp.purge.pause-ms=0"})
+@ActiveProfiles("h2")
+class StudentOtpPurgeServiceTests {
+
+	// Far enough back that rows written by other tests in the shared database are never purged
+	private static final LocalDateTime CUTOFF = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+	@Autowired private StudentOtpPurgeService studentOtpPurgeService;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void purgesExpiredRowsInChunksAndArchivesThem(@TempDir Path archiveDir) throws Exception {
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			LocalDateTime expiry = i % 5 == 0 ? CUTOFF.plusDays(1) : CUTOFF.minusDays(i);
+			rows.add(new Object[]{String.valueOf(300000 + i), "PURGE-" + i, expiry, i % 2 == 0});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO student_otp (otp, roll_number, expiry_time, used) VALUES (?, ?, ?, ?)", rows);
+
+		ReflectionTestUtils.setField(studentOtpPurgeService, "archiveDir", archiveDir.toString());
+		try {
+			MaintenanceJobReportDTO report = studentOtpPurgeService.purge(CUTOFF);
+			assertEquals(40, report.getRowsTouched());
+		} finally {
+			ReflectionTestUtils.setField(studentOtpPurgeService, "archiveDir", "");
+		}
+
+		assertEquals(0, count("expiry_time < ?", CUTOFF));
+		assertEquals(10, count("roll_number LIKE 'PURGE-%' AND expiry_time >= ?", CUTOFF));
+
+		Path archive;
+		try (Stream<Path> files = Files.list(archiveDir)) {
+			archive = files.findFirst().orElseThrow();
+		}
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+			reader.lines().forEach(lines::add);
+		}
+		assertEquals("id,student_id,roll_number,otp,expiry_time,used", lines.get(0));
+		assertEquals(41, lines.size());
+		// Exactly the purged rows, each once; no student, so that column is empty rather than 0
+		Set<String> archived = new HashSet<>();
+		for (String line : lines.subList(1, lines.size())) {
+			String[] fields = line.split(",", -1);
+			assertEquals("", fields[1], line);
+			archived.add(fields[2]);
+		}
+		Set<String> expired = new HashSet<>();
+		for (int i = 0; i < 50; i++) if (i % 5 != 0) expired.add("PURGE-" + i);
+		assertEquals(expired, archived);
+	}
+
+	private int count(String where, Object arg) {
+		Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_otp WHERE " + where, Integer.class, arg);
+		return count == null ? 0 : count;
+	}
+}